@@ -0,0 +1,35 @@
+package com.tsongkha.spinnerdatepicker;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+
+import java.util.Locale;
+
+/**
+ * Minimal {@link Context} for running {@link DateUtils#formatDate(Context, String)} outside of
+ * Android. Only the configuration locale is available.
+ */
+final class BenchmarkContexts {
+
+    private BenchmarkContexts() {
+    }
+
+    static Context forLocale(Locale locale) {
+        final Configuration configuration = new Configuration();
+        configuration.locale = locale;
+        final Resources resources = new Resources(BenchmarkContexts.class.getClassLoader()) {
+            @Override
+            public Configuration getConfiguration() {
+                return configuration;
+            }
+        };
+        return new ContextWrapper(null) {
+            @Override
+            public Resources getResources() {
+                return resources;
+            }
+        };
+    }
+}
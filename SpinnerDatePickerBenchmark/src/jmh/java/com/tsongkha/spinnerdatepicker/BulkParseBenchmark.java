@@ -0,0 +1,63 @@
+package com.tsongkha.spinnerdatepicker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * {@link DateUtils#parseDates(String[], boolean, long[])} over a mix of the accepted patterns,
+ * against calling {@link DateUtils#parseDateToMillis(String, boolean)} in a loop.
+ */
+@State(Scope.Benchmark)
+public class BulkParseBenchmark {
+
+    private static final String[] DATES = {
+            "--01-05",
+            "--02-29",
+            "1980-02-29",
+            "2017-01-05T10:11:12.123Z",
+            "2017-01-05T10:11Z",
+            "20170105",
+            "20170105T101112123Z",
+            "not a date",
+    };
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private String[] in;
+
+    private long[] out;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        in = new String[size];
+        for (int i = 0; i < size; i++) {
+            in[i] = DATES[random.nextInt(DATES.length)];
+        }
+        out = new long[size];
+    }
+
+    @Benchmark
+    public int parseDates() {
+        return DateUtils.parseDates(in, false, out);
+    }
+
+    @Benchmark
+    public int parseDatesSingleThreaded() {
+        return DateUtils.parseDates(in, false, out, null);
+    }
+
+    @Benchmark
+    public long[] parseDateLoop() {
+        for (int i = 0; i < in.length; i++) {
+            out[i] = DateUtils.parseDateToMillis(in[i], false);
+        }
+        return out;
+    }
+}
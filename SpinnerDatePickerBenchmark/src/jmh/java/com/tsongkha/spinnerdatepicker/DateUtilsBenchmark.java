@@ -0,0 +1,69 @@
+package com.tsongkha.spinnerdatepicker;
+
+import android.content.Context;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Single threaded cost of the {@link DateUtils} entry points for each accepted pattern.
+ */
+@State(Scope.Benchmark)
+public class DateUtilsBenchmark {
+
+    @Param({
+            "--01-05",
+            "--02-29",
+            "2017-01-05",
+            "2017-01-05T10:11:12.123Z",
+            "2017-01-05T10:11Z",
+            "20170105",
+            "20170105T101112123Z",
+            "20170105T101112Z",
+            "20170105T1011Z",
+    })
+    public String date;
+
+    private Context context;
+
+    private Calendar parsed;
+
+    @Setup
+    public void setUp() {
+        Locale.setDefault(Locale.US);
+        context = BenchmarkContexts.forLocale(Locale.US);
+        parsed = DateUtils.parseDate(date, false);
+    }
+
+    @Benchmark
+    public Calendar parseDate() {
+        return DateUtils.parseDate(date, false);
+    }
+
+    @Benchmark
+    public Calendar parseDateMustContainYear() {
+        return DateUtils.parseDate(date, true);
+    }
+
+    @Benchmark
+    public long parseDateToMillis() {
+        return DateUtils.parseDateToMillis(date, false);
+    }
+
+    @Benchmark
+    public String formatDate() {
+        return DateUtils.formatDate(context, date);
+    }
+
+    @Benchmark
+    public Date getNextAnnualDate() {
+        return DateUtils.getNextAnnualDate(parsed);
+    }
+}
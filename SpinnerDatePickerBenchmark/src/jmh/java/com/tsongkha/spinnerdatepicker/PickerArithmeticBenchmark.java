@@ -0,0 +1,68 @@
+package com.tsongkha.spinnerdatepicker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The day, month and year steps applied by the value change listener of {@link DatePicker},
+ * plus the formatting and ordering helpers used while it is on screen.
+ */
+@State(Scope.Thread)
+public class PickerArithmeticBenchmark {
+
+    @Param({
+            "MMM d, y",
+            "d MMM y",
+            "y年M月d日",
+            "d 'de' MMM 'de' y",
+    })
+    public String pattern;
+
+    private TwoDigitFormatter formatter;
+
+    private int date;
+
+    private int step;
+
+    @Setup
+    public void setUp() {
+        formatter = new TwoDigitFormatter();
+        date = PackedDates.pack(1980, 0, 1);
+    }
+
+    @Benchmark
+    public int rollDay() {
+        final int day = PackedDates.dayOfMonth(date);
+        final int maxDay = PackedDates.daysInMonth(PackedDates.year(date),
+                PackedDates.month(date));
+        // wraps from the last day of the month back to the first
+        date = PackedDates.rollDay(date, day, day == maxDay ? 1 : day + 1);
+        return date;
+    }
+
+    @Benchmark
+    public int rollMonth() {
+        final int month = PackedDates.month(date);
+        date = PackedDates.rollMonth(date, month, month == 11 ? 0 : month + 1);
+        return date;
+    }
+
+    @Benchmark
+    public int withYear() {
+        date = PackedDates.withYear(date, 1900 + (step++ & 0xFF));
+        return date;
+    }
+
+    @Benchmark
+    public String twoDigitFormat() {
+        return formatter.format(1 + (step++ & 0x1F) % 31);
+    }
+
+    @Benchmark
+    public char[] getDateFormatOrder() {
+        return ICU.getDateFormatOrder(pattern);
+    }
+}
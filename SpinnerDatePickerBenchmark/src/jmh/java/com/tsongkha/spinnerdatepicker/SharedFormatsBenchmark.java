@@ -0,0 +1,56 @@
+package com.tsongkha.spinnerdatepicker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.text.ParsePosition;
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Runs on four threads at once to expose contention on the shared SimpleDateFormats in
+ * {@link CommonDateUtils}, next to the lock free parser behind {@link DateUtils}.
+ */
+@State(Scope.Benchmark)
+@Threads(4)
+public class SharedFormatsBenchmark {
+
+    private static final String FULL_DATE = "2017-01-05";
+
+    private static final String DATE_AND_TIME = "2017-01-05T10:11:12.123Z";
+
+    private final Date date = new Date(1483611072123L);
+
+    @Benchmark
+    public Date parseFullDateFormat() {
+        synchronized (CommonDateUtils.FULL_DATE_FORMAT) {
+            return CommonDateUtils.FULL_DATE_FORMAT.parse(FULL_DATE, new ParsePosition(0));
+        }
+    }
+
+    @Benchmark
+    public String formatFullDateFormat() {
+        synchronized (CommonDateUtils.FULL_DATE_FORMAT) {
+            return CommonDateUtils.FULL_DATE_FORMAT.format(date);
+        }
+    }
+
+    @Benchmark
+    public String formatDateAndTimeFormat() {
+        synchronized (CommonDateUtils.DATE_AND_TIME_FORMAT) {
+            return CommonDateUtils.DATE_AND_TIME_FORMAT.format(date);
+        }
+    }
+
+    @Benchmark
+    public Calendar parseDate() {
+        return DateUtils.parseDate(FULL_DATE, true);
+    }
+
+    @Benchmark
+    public Calendar parseDateAndTime() {
+        return DateUtils.parseDate(DATE_AND_TIME, true);
+    }
+}
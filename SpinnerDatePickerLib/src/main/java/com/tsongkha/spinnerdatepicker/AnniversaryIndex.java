@@ -0,0 +1,294 @@
+package com.tsongkha.spinnerdatepicker;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Locale;
+
+/**
+ * Answers which of a set of dates come up next, with the rules of
+ * {@link DateUtils#getNextAnnualDate(Calendar)}: a date without a year (year 1 or less) comes
+ * back every year, February 29th only in leap years, and a date with a year happens once on that
+ * date.
+ *
+ * The dates are given once and kept in primitive arrays sorted by day of year, so a query is a
+ * binary search followed by a walk over the results. Dates are reported by their index in the
+ * input and as epoch days, the number of days since 1970-01-01. Instances are immutable.
+ */
+public final class AnniversaryIndex {
+
+    // days of year are counted as in a leap year, so that February 29th has a day of its own
+    private static final int LEAP_YEAR = 2000;
+
+    private static final int FEBRUARY_29TH = PackedDates.dayOfYear(LEAP_YEAR, Calendar.FEBRUARY,
+                                                                   29);
+
+    private static final long NONE = Long.MAX_VALUE;
+
+    // the dates without a year, by day of year
+    private final int[] mAnnualDays;
+
+    private final int[] mAnnualIndices;
+
+    // the range of mAnnualDays on February 29th, skipped in other years
+    private final int mFebruary29thStart;
+
+    private final int mFebruary29thEnd;
+
+    // the dates with a year, by epoch day
+    private final long[] mFixedEpochDays;
+
+    private final int[] mFixedIndices;
+
+    /**
+     * @param years        The years of the dates, 1 or less for a date without a year
+     * @param months       The zero based months, as in {@link Calendar}
+     * @param daysOfMonth  The days of the month
+     */
+    public AnniversaryIndex(int[] years, int[] months, int[] daysOfMonth) {
+        this(years, months, daysOfMonth, null);
+    }
+
+    /**
+     * @param present Whether each date is indexed, or null to index them all
+     */
+    private AnniversaryIndex(int[] years, int[] months, int[] daysOfMonth, boolean[] present) {
+        if (years.length != months.length || years.length != daysOfMonth.length) {
+            throw new IllegalArgumentException("Arrays must have the same length");
+        }
+        int annualCount = 0;
+        int fixedCount = 0;
+        for (int i = 0; i < years.length; i++) {
+            if (present != null && !present[i]) {
+                continue;
+            }
+            if (isYearSet(years[i])) {
+                fixedCount++;
+            } else {
+                annualCount++;
+            }
+        }
+        // sort keys in the high bits and input indices in the low bits, so one primitive sort
+        // orders the dates and keeps equal dates in input order
+        final long[] annual = new long[annualCount];
+        final long[] fixed = new long[fixedCount];
+        int annualIndex = 0;
+        int fixedIndex = 0;
+        for (int i = 0; i < years.length; i++) {
+            if (present != null && !present[i]) {
+                continue;
+            }
+            checkDate(months[i], daysOfMonth[i]);
+            if (isYearSet(years[i])) {
+                fixed[fixedIndex++] = PackedDates.toEpochDay(years[i], months[i], daysOfMonth[i])
+                        << 32 | i;
+            } else {
+                annual[annualIndex++] = (long) PackedDates.dayOfYear(LEAP_YEAR, months[i],
+                                                                     daysOfMonth[i]) << 32 | i;
+            }
+        }
+        Arrays.sort(annual);
+        Arrays.sort(fixed);
+
+        mAnnualDays = new int[annualCount];
+        mAnnualIndices = new int[annualCount];
+        for (int i = 0; i < annualCount; i++) {
+            mAnnualDays[i] = (int) (annual[i] >> 32);
+            mAnnualIndices[i] = (int) annual[i];
+        }
+        mFebruary29thStart = lowerBound(mAnnualDays, FEBRUARY_29TH);
+        mFebruary29thEnd = lowerBound(mAnnualDays, FEBRUARY_29TH + 1);
+
+        mFixedEpochDays = new long[fixed.length];
+        mFixedIndices = new int[fixed.length];
+        for (int i = 0; i < fixed.length; i++) {
+            mFixedEpochDays[i] = fixed[i] >> 32;
+            mFixedIndices[i] = (int) fixed[i];
+        }
+    }
+
+    /**
+     * Indexes dates as returned by {@link DateUtils#parseDate(String, boolean)}, or any other
+     * Calendar, using the year, month and day of month fields.
+     */
+    public static AnniversaryIndex fromCalendars(Calendar... dates) {
+        final int[] years = new int[dates.length];
+        final int[] months = new int[dates.length];
+        final int[] daysOfMonth = new int[dates.length];
+        for (int i = 0; i < dates.length; i++) {
+            years[i] = dates[i].get(Calendar.YEAR);
+            months[i] = dates[i].get(Calendar.MONTH);
+            daysOfMonth[i] = dates[i].get(Calendar.DAY_OF_MONTH);
+        }
+        return new AnniversaryIndex(years, months, daysOfMonth);
+    }
+
+    /**
+     * Indexes times as written by {@link DateUtils#parseDates(String[], boolean, long[])}. The
+     * indices reported by the queries are those of the array, entries equal to
+     * {@link DateUtils#PARSE_FAILED} are left out.
+     */
+    public static AnniversaryIndex fromUtcMillis(long[] utcMillis) {
+        // dates without a year are in 1 BC of the Julian calendar, so read them the same way
+        // parseDate does rather than with PackedDates
+        final Calendar calendar = Calendar.getInstance(DateUtils.UTC_TIMEZONE, Locale.US);
+        final int[] years = new int[utcMillis.length];
+        final int[] months = new int[utcMillis.length];
+        final int[] daysOfMonth = new int[utcMillis.length];
+        final boolean[] present = new boolean[utcMillis.length];
+        for (int i = 0; i < utcMillis.length; i++) {
+            if (utcMillis[i] == DateUtils.PARSE_FAILED) {
+                continue;
+            }
+            calendar.setTimeInMillis(utcMillis[i]);
+            years[i] = calendar.get(Calendar.YEAR);
+            months[i] = calendar.get(Calendar.MONTH);
+            daysOfMonth[i] = calendar.get(Calendar.DAY_OF_MONTH);
+            present[i] = true;
+        }
+        return new AnniversaryIndex(years, months, daysOfMonth, present);
+    }
+
+    /**
+     * @return the epoch day of today in the default time zone, the day
+     * {@link DateUtils#getNextAnnualDate(Calendar)} counts from
+     */
+    public static long todayEpochDay() {
+        return PackedDates.toEpochDay(PackedDates.fromMillis(System.currentTimeMillis()));
+    }
+
+    /**
+     * @return the number of dates in the index
+     */
+    public int size() {
+        return mAnnualDays.length + mFixedEpochDays.length;
+    }
+
+    /**
+     * Finds the next dates on or after the given day, in date order. Dates with a year before
+     * that day are not reported.
+     *
+     * @param outIndices   Receives the input index of each date, as many as it has room for
+     * @param outEpochDays Receives the epoch day each date comes up on, or null
+     * @return the number of dates written
+     */
+    public int next(long fromEpochDay, int[] outIndices, long[] outEpochDays) {
+        return query(fromEpochDay, Long.MAX_VALUE, outIndices, outEpochDays);
+    }
+
+    /**
+     * Finds the dates from one day to another, both inclusive, in date order.
+     *
+     * @param outIndices   Receives the input index of each date, as many as it has room for
+     * @param outEpochDays Receives the epoch day each date comes up on, or null
+     * @return the number of dates written, which is less than the number in the range if the
+     * arrays are full
+     */
+    public int between(long fromEpochDay, long toEpochDay, int[] outIndices,
+                       long[] outEpochDays) {
+        return query(fromEpochDay, toEpochDay, outIndices, outEpochDays);
+    }
+
+    private int query(long fromEpochDay, long toEpochDay, int[] outIndices, long[] outEpochDays) {
+        final int max = outEpochDays != null
+                ? Math.min(outIndices.length, outEpochDays.length) : outIndices.length;
+        if (max == 0 || fromEpochDay > toEpochDay) {
+            return 0;
+        }
+        final int from = PackedDates.fromEpochDay(fromEpochDay);
+        int year = PackedDates.year(from);
+        long yearStart = fromEpochDay - PackedDates.dayOfYear(year, PackedDates.month(from),
+                                                              PackedDates.dayOfMonth(from));
+        int annual = lowerBound(mAnnualDays, PackedDates.dayOfYear(
+                LEAP_YEAR, PackedDates.month(from), PackedDates.dayOfMonth(from)));
+        int fixed = lowerBound(mFixedEpochDays, fromEpochDay);
+        // with nothing but February 29th the next one is at most 8 years away, so the search
+        // for the next date without a year always ends
+        final boolean hasAnnual = mAnnualDays.length > 0;
+
+        int count = 0;
+        while (count < max) {
+            // the next date without a year, moving on to the next years as needed
+            long annualEpochDay = NONE;
+            while (hasAnnual && annualEpochDay == NONE) {
+                if (annual == mFebruary29thStart && !PackedDates.isLeapYear(year)) {
+                    annual = mFebruary29thEnd;
+                }
+                if (annual < mAnnualDays.length) {
+                    final int day = mAnnualDays[annual];
+                    annualEpochDay = yearStart + (day > FEBRUARY_29TH
+                            && !PackedDates.isLeapYear(year) ? day - 1 : day);
+                } else {
+                    yearStart += PackedDates.daysInYear(year);
+                    year++;
+                    annual = 0;
+                    if (yearStart > toEpochDay) {
+                        break;
+                    }
+                }
+            }
+            final long fixedEpochDay = fixed < mFixedEpochDays.length
+                    ? mFixedEpochDays[fixed] : NONE;
+
+            final long epochDay;
+            final int index;
+            if (fixedEpochDay <= annualEpochDay && fixedEpochDay != NONE) {
+                epochDay = fixedEpochDay;
+                index = mFixedIndices[fixed++];
+            } else if (annualEpochDay != NONE) {
+                epochDay = annualEpochDay;
+                index = mAnnualIndices[annual++];
+            } else {
+                break;
+            }
+            if (epochDay > toEpochDay) {
+                break;
+            }
+            outIndices[count] = index;
+            if (outEpochDays != null) {
+                outEpochDays[count] = epochDay;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    private static boolean isYearSet(int year) {
+        // same test as DateUtils.isYearSet
+        return year > 1;
+    }
+
+    private static void checkDate(int month, int dayOfMonth) {
+        if (month < Calendar.JANUARY || month > Calendar.DECEMBER || dayOfMonth < 1
+                || dayOfMonth > PackedDates.daysInMonth(LEAP_YEAR, month)) {
+            throw new IllegalArgumentException("Invalid date " + (month + 1) + "-" + dayOfMonth);
+        }
+    }
+
+    private static int lowerBound(int[] values, int key) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (values[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int lowerBound(long[] values, long key) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (values[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
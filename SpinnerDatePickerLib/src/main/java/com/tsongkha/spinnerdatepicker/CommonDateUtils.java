@@ -19,7 +19,8 @@ import java.util.Locale;
  * Common date utilities.
  */
 public class CommonDateUtils {
-    // All the SimpleDateFormats in this class use the UTC timezone
+    // All the SimpleDateFormats in this class use the UTC timezone. They must be synchronized
+    // on, IsoDateWriter writes the same shapes without locking.
     public static final SimpleDateFormat NO_YEAR_DATE_FORMAT =
             new SimpleDateFormat("--MM-dd", Locale.US);
     public static final SimpleDateFormat FULL_DATE_FORMAT =
@@ -0,0 +1,317 @@
+package com.tsongkha.spinnerdatepicker;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A set of dates that can't be picked, such as weekends or holidays.
+ *
+ * The disabled days of each year that has any are kept as a bitset indexed by the day of the
+ * year, and the disabled days of the week as a mask, so checking a date takes a few operations
+ * and the nearest date that can be picked is found a word of 64 days at a time. Years without
+ * disabled days take no space, however far apart the others are. Instances are immutable and are
+ * made with a {@link Builder}.
+ */
+public final class DateConstraints {
+
+    /**
+     * Returned by the searches when there is no enabled date within the limit
+     */
+    static final int NO_DATE = -1;
+
+    private static final int DAYS_IN_WEEK = 7;
+
+    private static final int ALL_DAYS_OF_WEEK = (1 << DAYS_IN_WEEK) - 1;
+
+    // enough for the 366 days of a leap year
+    private static final int WORDS_PER_YEAR = 6;
+
+    // the years with disabled days, in order
+    private final int[] mYears;
+
+    // WORDS_PER_YEAR words for each of mYears
+    private final long[] mDisabledDays;
+
+    // bit (dayOfWeek - Calendar.SUNDAY) is set for each disabled day of the week
+    private final int mDisabledDaysOfWeek;
+
+    // the disabled days of the week repeated over a word, indexed by the day of the week of its
+    // first bit, counted from Sunday
+    private final long[] mDisabledDaysOfWeekWords = new long[DAYS_IN_WEEK];
+
+    private DateConstraints(Builder builder) {
+        mDisabledDaysOfWeek = builder.mDisabledDaysOfWeek;
+        mYears = new int[builder.mDisabledDays.size()];
+        mDisabledDays = new long[mYears.length * WORDS_PER_YEAR];
+        int yearIndex = 0;
+        for (Map.Entry<Integer, long[]> entry : builder.mDisabledDays.entrySet()) {
+            mYears[yearIndex] = entry.getKey();
+            System.arraycopy(entry.getValue(), 0, mDisabledDays, yearIndex * WORDS_PER_YEAR,
+                             WORDS_PER_YEAR);
+            yearIndex++;
+        }
+        for (int first = 0; first < DAYS_IN_WEEK; first++) {
+            long word = 0;
+            for (int bit = 0; bit < Long.SIZE; bit++) {
+                if ((mDisabledDaysOfWeek & (1 << ((first + bit) % DAYS_IN_WEEK))) != 0) {
+                    word |= 1L << bit;
+                }
+            }
+            mDisabledDaysOfWeekWords[first] = word;
+        }
+    }
+
+    /**
+     * @param month The zero based month, as in {@link Calendar}
+     * @return whether the date can be picked
+     */
+    public boolean isEnabled(int year, int month, int dayOfMonth) {
+        return isEnabled(PackedDates.pack(year, month, dayOfMonth));
+    }
+
+    boolean isEnabled(int date) {
+        final int year = PackedDates.year(date);
+        final int dayOfWeek = PackedDates.dayOfWeek(PackedDates.toEpochDay(date));
+        if ((mDisabledDaysOfWeek & (1 << (dayOfWeek - Calendar.SUNDAY))) != 0) {
+            return false;
+        }
+        final int yearIndex = yearIndex(year);
+        if (yearIndex < 0) {
+            return true;
+        }
+        final int dayOfYear = PackedDates.dayOfYear(year, PackedDates.month(date),
+                                                    PackedDates.dayOfMonth(date));
+        return (mDisabledDays[yearIndex * WORDS_PER_YEAR + (dayOfYear >> 6)]
+                & (1L << dayOfYear)) == 0;
+    }
+
+    /**
+     * @return the first enabled date from the given one up to the limit, both packed, or
+     * {@link #NO_DATE}
+     */
+    int nextEnabled(int from, int limit) {
+        if (from > limit || mDisabledDaysOfWeek == ALL_DAYS_OF_WEEK) {
+            return NO_DATE;
+        }
+        final int fromYear = PackedDates.year(from);
+        final int limitYear = PackedDates.year(limit);
+        for (int year = fromYear; year <= limitYear; year++) {
+            final int fromDay = year == fromYear ? dayOfYear(from) : 0;
+            final int toDay = year == limitYear
+                    ? dayOfYear(limit) : PackedDates.daysInYear(year) - 1;
+            final int day = nextEnabledDayOfYear(year, fromDay, toDay);
+            if (day >= 0) {
+                return PackedDates.fromDayOfYear(year, day);
+            }
+        }
+        return NO_DATE;
+    }
+
+    /**
+     * @return the last enabled date from the given one down to the limit, both packed, or
+     * {@link #NO_DATE}
+     */
+    int previousEnabled(int from, int limit) {
+        if (from < limit || mDisabledDaysOfWeek == ALL_DAYS_OF_WEEK) {
+            return NO_DATE;
+        }
+        final int fromYear = PackedDates.year(from);
+        final int limitYear = PackedDates.year(limit);
+        for (int year = fromYear; year >= limitYear; year--) {
+            final int fromDay = year == fromYear
+                    ? dayOfYear(from) : PackedDates.daysInYear(year) - 1;
+            final int toDay = year == limitYear ? dayOfYear(limit) : 0;
+            final int day = previousEnabledDayOfYear(year, fromDay, toDay);
+            if (day >= 0) {
+                return PackedDates.fromDayOfYear(year, day);
+            }
+        }
+        return NO_DATE;
+    }
+
+    /**
+     * Moves a disabled date to an enabled one within the given range.
+     *
+     * @param direction Positive to look for a later date first, negative for an earlier one and
+     *                  zero for the closest one
+     * @return the date itself if it's enabled, otherwise the enabled date found or
+     * {@link #NO_DATE}
+     */
+    int snap(int date, int direction, int minDate, int maxDate) {
+        if (isEnabled(date)) {
+            return date;
+        }
+        final int next = nextEnabled(date, maxDate);
+        final int previous = previousEnabled(date, minDate);
+        if (next == NO_DATE) {
+            return previous;
+        } else if (previous == NO_DATE) {
+            return next;
+        } else if (direction > 0) {
+            return next;
+        } else if (direction < 0) {
+            return previous;
+        }
+        final long epochDay = PackedDates.toEpochDay(date);
+        return PackedDates.toEpochDay(next) - epochDay <= epochDay - PackedDates.toEpochDay(previous)
+                ? next : previous;
+    }
+
+    private int nextEnabledDayOfYear(int year, int fromDay, int toDay) {
+        final int yearIndex = yearIndex(year);
+        final boolean hasDisabledDays = yearIndex >= 0;
+        final int firstDayOfWeek = firstDayOfWeek(year);
+        final int toWord = toDay >> 6;
+        for (int word = fromDay >> 6; word <= toWord; word++) {
+            long enabled = ~disabledWord(year, yearIndex, hasDisabledDays, firstDayOfWeek, word);
+            if (word == fromDay >> 6) {
+                enabled &= -1L << fromDay;
+            }
+            if (word == toWord) {
+                enabled &= -1L >>> (63 - (toDay & 63));
+            }
+            if (enabled != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(enabled);
+            }
+        }
+        return -1;
+    }
+
+    private int previousEnabledDayOfYear(int year, int fromDay, int toDay) {
+        final int yearIndex = yearIndex(year);
+        final boolean hasDisabledDays = yearIndex >= 0;
+        final int firstDayOfWeek = firstDayOfWeek(year);
+        final int toWord = toDay >> 6;
+        for (int word = fromDay >> 6; word >= toWord; word--) {
+            long enabled = ~disabledWord(year, yearIndex, hasDisabledDays, firstDayOfWeek, word);
+            if (word == fromDay >> 6) {
+                enabled &= -1L >>> (63 - (fromDay & 63));
+            }
+            if (word == toWord) {
+                enabled &= -1L << toDay;
+            }
+            if (enabled != 0) {
+                return (word << 6) + 63 - Long.numberOfLeadingZeros(enabled);
+            }
+        }
+        return -1;
+    }
+
+    private long disabledWord(int year, int yearIndex, boolean hasDisabledDays,
+                              int firstDayOfWeek, int word) {
+        // 64 days are a week and a day, so each word starts one day of the week later
+        long disabled = mDisabledDaysOfWeekWords[(firstDayOfWeek + word) % DAYS_IN_WEEK];
+        if (hasDisabledDays) {
+            disabled |= mDisabledDays[yearIndex * WORDS_PER_YEAR + word];
+        }
+        if (word == WORDS_PER_YEAR - 1) {
+            // the days past the end of the year
+            disabled |= -1L << (PackedDates.daysInYear(year) & 63);
+        }
+        return disabled;
+    }
+
+    /**
+     * @return the index of the year in mYears, or a negative number if it has no disabled days
+     */
+    private int yearIndex(int year) {
+        return Arrays.binarySearch(mYears, year);
+    }
+
+    /**
+     * @return the day of the week of January 1st, counted from Sunday
+     */
+    private static int firstDayOfWeek(int year) {
+        return PackedDates.dayOfWeek(PackedDates.toEpochDay(year, Calendar.JANUARY, 1))
+                - Calendar.SUNDAY;
+    }
+
+    private static int dayOfYear(int date) {
+        return PackedDates.dayOfYear(PackedDates.year(date), PackedDates.month(date),
+                                     PackedDates.dayOfMonth(date));
+    }
+
+    public static class Builder {
+
+        // the disabled days of each year, WORDS_PER_YEAR words indexed by the day of the year
+        private final TreeMap<Integer, long[]> mDisabledDays = new TreeMap<>();
+
+        private int mDisabledDaysOfWeek;
+
+        /**
+         * @param month The zero based month, as in {@link Calendar}
+         */
+        public Builder disableDate(int year, int month, int dayOfMonth) {
+            checkDate(year, month, dayOfMonth);
+            setDisabled(year, PackedDates.dayOfYear(year, month, dayOfMonth),
+                        PackedDates.dayOfYear(year, month, dayOfMonth));
+            return this;
+        }
+
+        /**
+         * Disables all the dates from the first one to the last one, inclusive.
+         */
+        public Builder disableRange(int firstYear, int firstMonth, int firstDayOfMonth,
+                                    int lastYear, int lastMonth, int lastDayOfMonth) {
+            checkDate(firstYear, firstMonth, firstDayOfMonth);
+            checkDate(lastYear, lastMonth, lastDayOfMonth);
+            final int firstDay = PackedDates.dayOfYear(firstYear, firstMonth, firstDayOfMonth);
+            final int lastDay = PackedDates.dayOfYear(lastYear, lastMonth, lastDayOfMonth);
+            if (firstYear > lastYear || (firstYear == lastYear && firstDay > lastDay)) {
+                throw new IllegalArgumentException("Range ends before it starts");
+            }
+            for (int year = firstYear; year <= lastYear; year++) {
+                setDisabled(year, year == firstYear ? firstDay : 0,
+                            year == lastYear ? lastDay : PackedDates.daysInYear(year) - 1);
+            }
+            return this;
+        }
+
+        /**
+         * @param daysOfWeek Days from {@link Calendar#SUNDAY} to {@link Calendar#SATURDAY}
+         */
+        public Builder disableDaysOfWeek(int... daysOfWeek) {
+            for (int dayOfWeek : daysOfWeek) {
+                if (dayOfWeek < Calendar.SUNDAY || dayOfWeek > Calendar.SATURDAY) {
+                    throw new IllegalArgumentException("Unknown day of week " + dayOfWeek);
+                }
+                mDisabledDaysOfWeek |= 1 << (dayOfWeek - Calendar.SUNDAY);
+            }
+            return this;
+        }
+
+        public DateConstraints build() {
+            return new DateConstraints(this);
+        }
+
+        private void setDisabled(int year, int firstDay, int lastDay) {
+            long[] words = mDisabledDays.get(year);
+            if (words == null) {
+                words = new long[WORDS_PER_YEAR];
+                mDisabledDays.put(year, words);
+            }
+            final int firstWord = firstDay >> 6;
+            final int lastWord = lastDay >> 6;
+            for (int word = firstWord; word <= lastWord; word++) {
+                long mask = -1L;
+                if (word == firstWord) {
+                    mask &= -1L << firstDay;
+                }
+                if (word == lastWord) {
+                    mask &= -1L >>> (63 - (lastDay & 63));
+                }
+                words[word] |= mask;
+            }
+        }
+
+        private static void checkDate(int year, int month, int dayOfMonth) {
+            if (year < 0 || month < Calendar.JANUARY || month > Calendar.DECEMBER
+                    || dayOfMonth < 1 || dayOfMonth > PackedDates.daysInMonth(year, month)) {
+                throw new IllegalArgumentException(
+                        "Invalid date " + year + "-" + (month + 1) + "-" + dayOfMonth);
+            }
+        }
+    }
+}
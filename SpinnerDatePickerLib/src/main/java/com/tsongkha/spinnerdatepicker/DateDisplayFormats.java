@@ -0,0 +1,100 @@
+package com.tsongkha.spinnerdatepicker;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.text.format.DateFormat;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * The output formats of {@link DateUtils#formatDate(Context, String, boolean)}, built once per
+ * thread and locale rather than for every date.
+ *
+ * Each thread has its own formats, so formatting needs no lock. They are built again when the
+ * default locale or the configuration of the context changes, as the platform builds them from
+ * both. Only dates are formatted, so the user's 12/24 hour setting doesn't matter. The date
+ * format setting that Android 4.1 and 4.2 read for the short form is not part of the
+ * configuration and is picked up with the next configuration change.
+ */
+final class DateDisplayFormats {
+
+    static final int LONG = 0;
+    static final int SHORT = 1;
+    static final int NO_YEAR = 2;
+
+    private static final int FORM_COUNT = 3;
+
+    private static final ThreadLocal<DateDisplayFormats> FORMATS =
+            new ThreadLocal<DateDisplayFormats>() {
+                @Override
+                protected DateDisplayFormats initialValue() {
+                    return new DateDisplayFormats();
+                }
+            };
+
+    // what the formats were built for
+    private Locale mLocale;
+    private final Configuration mConfiguration = new Configuration();
+
+    private final java.text.DateFormat[] mFormats = new java.text.DateFormat[FORM_COUNT];
+
+    // reused for every date formatted on this thread
+    private final Calendar mCalendar = Calendar.getInstance(DateUtils.UTC_TIMEZONE, Locale.US);
+
+    private final Date mDate = new Date();
+
+    private DateDisplayFormats() {
+    }
+
+    static DateDisplayFormats get() {
+        return FORMATS.get();
+    }
+
+    /**
+     * Formats a time as returned by {@link DateUtils#parseDateToMillis(String, boolean)}.
+     *
+     * @param longForm Whether to use the long form for a date with a year
+     */
+    String format(Context context, long millis, boolean longForm) {
+        mCalendar.setTimeInMillis(millis);
+        final int form;
+        if (!DateUtils.isYearSet(mCalendar)) {
+            form = NO_YEAR;
+        } else {
+            form = longForm ? LONG : SHORT;
+        }
+        mDate.setTime(millis);
+        return getFormat(context, form).format(mDate);
+    }
+
+    private java.text.DateFormat getFormat(Context context, int form) {
+        final Locale locale = Locale.getDefault();
+        final Configuration configuration = context.getResources().getConfiguration();
+        if (!locale.equals(mLocale) || !configuration.equals(mConfiguration)) {
+            mLocale = locale;
+            mConfiguration.setTo(configuration);
+            for (int i = 0; i < FORM_COUNT; i++) {
+                mFormats[i] = null;
+            }
+        }
+        java.text.DateFormat format = mFormats[form];
+        if (format == null) {
+            switch (form) {
+                case LONG:
+                    format = DateFormat.getLongDateFormat(context);
+                    break;
+                case SHORT:
+                    format = DateFormat.getDateFormat(context);
+                    break;
+                default:
+                    format = DateUtils.getLocalizedDateFormatWithoutYear(context);
+                    break;
+            }
+            format.setTimeZone(DateUtils.UTC_TIMEZONE);
+            mFormats[form] = format;
+        }
+        return format;
+    }
+}
@@ -0,0 +1,189 @@
+package com.tsongkha.spinnerdatepicker;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Remembers the results of {@link DateUtils#parseDateToMillis(String, boolean)} for strings
+ * seen before, for data where the same dates come up again and again.
+ *
+ * The cache is split into segments by the hash of the string, each an LRU map with its own lock,
+ * so threads parsing different strings rarely wait on each other. Strings are parsed outside of
+ * the locks. Results are times in milliseconds, or {@link DateUtils#PARSE_FAILED}, and failures
+ * are remembered too.
+ */
+public final class DateParseCache {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    // inputs smaller than twice this are parsed on the calling thread
+    private static final int PARALLEL_THRESHOLD = 2048;
+
+    // stored for the mode a string has not been parsed with yet
+    private static final long NOT_PARSED = Long.MIN_VALUE + 2;
+
+    private final Segment[] mSegments;
+
+    /**
+     * @param capacity The number of strings to remember, beyond which the least recently used
+     *                 ones are forgotten
+     */
+    public DateParseCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        int segments = 1;
+        while (segments < MAX_SEGMENTS && segments * 2 <= capacity) {
+            segments *= 2;
+        }
+        mSegments = new Segment[segments];
+        for (int i = 0; i < segments; i++) {
+            // spread the remainder so that the capacities add up
+            mSegments[i] = new Segment(capacity / segments + (i < capacity % segments ? 1 : 0));
+        }
+    }
+
+    /**
+     * Same as {@link DateUtils#parseDateToMillis(String, boolean)}, parsing the string only if
+     * its result isn't remembered.
+     */
+    public long parseDateToMillis(String string, boolean mustContainYear) {
+        if (string == null) {
+            return DateUtils.PARSE_FAILED;
+        }
+        final int mode = mustContainYear ? 1 : 0;
+        final Segment segment = segmentFor(string);
+        synchronized (segment) {
+            final long[] results = segment.get(string);
+            if (results != null && results[mode] != NOT_PARSED) {
+                segment.mHits++;
+                return results[mode];
+            }
+            segment.mMisses++;
+        }
+        final long millis = DateUtils.parseDateToMillis(string, mustContainYear);
+        synchronized (segment) {
+            long[] results = segment.get(string);
+            if (results == null) {
+                results = new long[]{NOT_PARSED, NOT_PARSED};
+                segment.put(string, results);
+            }
+            results[mode] = millis;
+        }
+        return millis;
+    }
+
+    /**
+     * Same as {@link DateUtils#parseDates(String[], boolean, long[])}, going through the cache
+     * for each string.
+     */
+    public int parseDates(String[] in, boolean mustContainYear, long[] outEpochMillis) {
+        return parseDates(in, mustContainYear, outEpochMillis, ParallelRanges.defaultExecutor());
+    }
+
+    /**
+     * Same as {@link DateUtils#parseDates(String[], boolean, long[], Executor)}, going through
+     * the cache for each string.
+     */
+    public int parseDates(final String[] in, final boolean mustContainYear,
+                          final long[] outEpochMillis, Executor executor) {
+        if (outEpochMillis.length < in.length) {
+            throw new IllegalArgumentException("Output array is shorter than the input");
+        }
+        final int[] parsed = new int[1];
+        ParallelRanges.run(in.length, PARALLEL_THRESHOLD, executor, new ParallelRanges.Range() {
+            @Override
+            public void run(int from, int to) {
+                int count = 0;
+                for (int i = from; i < to; i++) {
+                    final long millis = parseDateToMillis(in[i], mustContainYear);
+                    outEpochMillis[i] = millis;
+                    if (millis != DateUtils.PARSE_FAILED) {
+                        count++;
+                    }
+                }
+                synchronized (parsed) {
+                    parsed[0] += count;
+                }
+            }
+        });
+        return parsed[0];
+    }
+
+    /**
+     * @return the number of lookups answered from the cache
+     */
+    public long getHitCount() {
+        long hits = 0;
+        for (Segment segment : mSegments) {
+            synchronized (segment) {
+                hits += segment.mHits;
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * @return the number of lookups that had to parse the string
+     */
+    public long getMissCount() {
+        long misses = 0;
+        for (Segment segment : mSegments) {
+            synchronized (segment) {
+                misses += segment.mMisses;
+            }
+        }
+        return misses;
+    }
+
+    /**
+     * @return the number of strings remembered
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : mSegments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Forgets all the strings, keeping the counters.
+     */
+    public void clear() {
+        for (Segment segment : mSegments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    private Segment segmentFor(String string) {
+        final int hash = string.hashCode() * 0x9E3779B9;
+        return mSegments[(hash >>> 16) & (mSegments.length - 1)];
+    }
+
+    /**
+     * An LRU map of strings to their results with and without a year required, indexed by
+     * mustContainYear. Only used while holding its own lock.
+     */
+    @SuppressWarnings("serial") // never serialized
+    private static final class Segment extends LinkedHashMap<String, long[]> {
+        private final int mCapacity;
+        long mHits;
+        long mMisses;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            mCapacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, long[]> eldest) {
+            return size() > mCapacity;
+        }
+    }
+}
@@ -18,10 +18,13 @@ package com.tsongkha.spinnerdatepicker;
 
 import android.content.Context;
 import android.content.res.Configuration;
+import android.os.Build;
 import android.os.Parcel;
 import android.os.Parcelable;
+import android.os.SystemClock;
 import android.text.InputType;
 import android.text.format.DateFormat;
+import android.view.Choreographer;
 import android.view.ContextThemeWrapper;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -33,10 +36,10 @@ import android.widget.EditText;
 import android.widget.FrameLayout;
 import android.widget.LinearLayout;
 import android.widget.NumberPicker;
+import android.widget.NumberPicker.OnScrollListener;
 import android.widget.NumberPicker.OnValueChangeListener;
 import android.widget.TextView;
 
-import java.text.DateFormatSymbols;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Calendar;
@@ -47,10 +50,38 @@ import java.util.Locale;
  */
 public class DatePicker extends FrameLayout {
 
+    /**
+     * Notify every change of the date, including each step of a fling
+     */
+    public static final int NOTIFY_IMMEDIATE = 0;
+
+    /**
+     * Notify at most once per frame with the latest date
+     */
+    public static final int NOTIFY_FRAME_COALESCED = 1;
+
+    /**
+     * Notify once all the spinners have stopped scrolling, and stepping for a long press
+     */
+    public static final int NOTIFY_ON_SETTLE = 2;
+
     private static final String DATE_FORMAT = "MM/dd/yyyy";
 
     private static final boolean DEFAULT_ENABLED_STATE = true;
 
+    private static final int YEAR_LONG_PRESS_UPDATE_INTERVAL = 100;
+
+    // the year long press speeds up for ranges wider than this, down to one step per frame
+    private static final int YEAR_LONG_PRESS_RANGE = 200;
+
+    private static final int MIN_LONG_PRESS_UPDATE_INTERVAL = 16;
+
+    // longer than the 300 ms between the steps of a long press, which don't scroll
+    private static final long SETTLE_DELAY_MILLIS = 400;
+
+    // the year spinner shows at most this many years either side of the selected one
+    private static final int YEAR_WINDOW = 100;
+
     private LinearLayout mPickerContainer;
 
     private NumberPicker mDaySpinner;
@@ -59,6 +90,9 @@ public class DatePicker extends FrameLayout {
 
     private NumberPicker mYearSpinner;
 
+    // replaces the three spinners when not null
+    private DateWheelView mWheel;
+
     private EditText mDaySpinnerInput;
 
     private EditText mMonthSpinnerInput;
@@ -75,114 +109,227 @@ public class DatePicker extends FrameLayout {
 
     private int mNumberOfMonths;
 
-    private Calendar mTempDate;
+    private PickerLocaleData mLocaleData;
+
+    // the wrapping last requested for the day and month spinners
+
+    private boolean mDaySpinnerWrap;
+
+    private boolean mMonthSpinnerWrap;
+
+    private long mYearLongPressUpdateInterval = YEAR_LONG_PRESS_UPDATE_INTERVAL;
+
+    private boolean mYearInputFocused;
 
-    private Calendar mMinDate;
+    // whether the year window is centred on the next date rather than moved along with it
+    private boolean mCenterYearWindow;
 
-    private Calendar mMaxDate;
+    // dates are packed into ints by PackedDates so that spinning allocates nothing
 
-    private Calendar mCurrentDate;
+    private int mMinDate;
+
+    private int mMaxDate;
+
+    private int mCurrentDate;
+
+    private DateConstraints mDateConstraints;
+
+    // the first and last enabled dates between the min and max dates, which bound the year
+    // spinner, or the min and max dates without constraints
+    private int mFirstEnabledDate;
+
+    private int mLastEnabledDate;
 
     private boolean mIsEnabled = DEFAULT_ENABLED_STATE;
 
     private boolean mIsDayShown = true;
 
+    private int mNotificationMode = NOTIFY_IMMEDIATE;
+
+    private boolean mNotificationPending;
+
+    // one bit per spinner that is not idle, shifted by its field
+    private int mScrollingSpinners;
+
+    // null unless the app asked for timings
+    private final PickerMetrics mMetrics;
+
+    private int mUpdateCount;
+
+    private final Choreographer.FrameCallback mNotifyFrameCallback =
+            new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    mNotificationPending = false;
+                    notifyDateChanged();
+                }
+            };
+
     DatePicker(ViewGroup root, int numberPickerStyle) {
+        this(root, numberPickerStyle, false, false, null);
+    }
+
+    /**
+     * @param programmaticLayout Whether to build the views in code rather than inflating the
+     *                           layout files, with the same ids and theme
+     * @param wheelRenderer      Whether to draw the spinners as the columns of a single
+     *                           {@link DateWheelView} rather than with three NumberPickers
+     * @param metrics            Receives the timings of the picker, or null
+     */
+    DatePicker(ViewGroup root, int numberPickerStyle, boolean programmaticLayout,
+               boolean wheelRenderer, PickerMetrics metrics) {
         super(root.getContext());
         mContext = root.getContext();
+        mMetrics = metrics;
 
         // initialization based on locale
+        long localeStart = metrics != null ? elapsedRealtimeNanos() : 0;
         setCurrentLocale(Locale.getDefault());
+        long localeNanos = metrics != null ? elapsedRealtimeNanos() - localeStart : 0;
+
+        final Context themedContext = new ContextThemeWrapper(mContext, numberPickerStyle);
+        final LayoutInflater inflater;
+        if (programmaticLayout) {
+            inflater = null;
+            mPickerContainer = PickerLayouts.createPickerContainer(themedContext, this);
+        } else {
+            inflater = (LayoutInflater) themedContext.getSystemService(
+                    Context.LAYOUT_INFLATER_SERVICE);
+            inflater.inflate(R.layout.date_picker_container, this, true);
+            mPickerContainer = findViewById(R.id.parent);
+        }
 
-        LayoutInflater inflater = (LayoutInflater) new ContextThemeWrapper(mContext,
-                                                                           numberPickerStyle).getSystemService(
-                Context.LAYOUT_INFLATER_SERVICE);
-        inflater.inflate(R.layout.date_picker_container, this, true);
+        if (wheelRenderer) {
+            createWheel(themedContext);
+        } else {
+            createSpinners(themedContext, inflater);
+        }
+
+        // initialize to current date
+        mCurrentDate = PackedDates.fromMillis(System.currentTimeMillis());
+        mMinDate = mCurrentDate;
+        mMaxDate = mCurrentDate;
+        mFirstEnabledDate = mCurrentDate;
+        mLastEnabledDate = mCurrentDate;
 
-        mPickerContainer = findViewById(R.id.parent);
+        // re-order the number spinners to match the current date format
+        localeStart = metrics != null ? elapsedRealtimeNanos() : 0;
+        reorderSpinners();
+        if (metrics != null) {
+            localeNanos += elapsedRealtimeNanos() - localeStart;
+            metrics.onLocaleApplied(localeNanos);
+        }
 
+        // If not explicitly specified this view is important for accessibility.
+        if (getImportantForAccessibility() == View.IMPORTANT_FOR_ACCESSIBILITY_AUTO) {
+            setImportantForAccessibility(View.IMPORTANT_FOR_ACCESSIBILITY_YES);
+        }
+
+        root.addView(this);
+    }
+
+    private void createSpinners(Context themedContext, LayoutInflater inflater) {
         OnValueChangeListener onChangeListener = new OnValueChangeListener() {
             public void onValueChange(NumberPicker picker, int oldVal, int newVal) {
                 updateInputState();
-                mTempDate.setTimeInMillis(mCurrentDate.getTimeInMillis());
-                // take care of wrapping of days and months to update greater fields
-                if (picker == mDaySpinner) {
-                    int maxDayOfMonth = mTempDate.getActualMaximum(Calendar.DAY_OF_MONTH);
-                    if (oldVal == maxDayOfMonth && newVal == 1) {
-                        mTempDate.add(Calendar.DAY_OF_MONTH, 1);
-                    } else if (oldVal == 1 && newVal == maxDayOfMonth) {
-                        mTempDate.add(Calendar.DAY_OF_MONTH, -1);
-                    } else {
-                        mTempDate.add(Calendar.DAY_OF_MONTH, newVal - oldVal);
-                    }
-                } else if (picker == mMonthSpinner) {
-                    if (oldVal == 11 && newVal == 0) {
-                        mTempDate.add(Calendar.MONTH, 1);
-                    } else if (oldVal == 0 && newVal == 11) {
-                        mTempDate.add(Calendar.MONTH, -1);
-                    } else {
-                        mTempDate.add(Calendar.MONTH, newVal - oldVal);
-                    }
-                } else if (picker == mYearSpinner) {
-                    mTempDate.set(Calendar.YEAR, newVal);
-                } else {
-                    throw new IllegalArgumentException();
-                }
-                // now set the date to the adjusted one
-                setDate(mTempDate.get(Calendar.YEAR), mTempDate.get(Calendar.MONTH),
-                        mTempDate.get(Calendar.DAY_OF_MONTH));
-                updateSpinners();
-                notifyDateChanged();
+                onSpinnerChanged(getSpinnerField(picker), oldVal, newVal);
+            }
+        };
+
+        OnScrollListener onScrollListener = new OnScrollListener() {
+            @Override
+            public void onScrollStateChange(NumberPicker picker, int scrollState) {
+                onSpinnerScrollStateChanged(getSpinnerField(picker), scrollState);
             }
         };
 
         // day
-        mDaySpinner = (NumberPicker) inflater.inflate(R.layout.number_picker_day_month,
-                                                      mPickerContainer, false);
+        mDaySpinner = createSpinner(themedContext, inflater, R.layout.number_picker_day_month,
+                                    PickerLayouts.DAY_MONTH_WIDTH_DIP);
         mDaySpinner.setId(R.id.day);
         mDaySpinner.setFormatter(new TwoDigitFormatter());
         mDaySpinner.setOnLongPressUpdateInterval(100);
         mDaySpinner.setOnValueChangedListener(onChangeListener);
+        mDaySpinner.setOnScrollListener(onScrollListener);
         mDaySpinnerInput = NumberPickers.findEditText(mDaySpinner);
 
-
         // month
-        mMonthSpinner = (NumberPicker) inflater.inflate(R.layout.number_picker_day_month,
-                                                        mPickerContainer, false);
+        mMonthSpinner = createSpinner(themedContext, inflater, R.layout.number_picker_day_month,
+                                      PickerLayouts.DAY_MONTH_WIDTH_DIP);
         mMonthSpinner.setId(R.id.month);
         mMonthSpinner.setMinValue(0);
         mMonthSpinner.setMaxValue(mNumberOfMonths - 1);
         mMonthSpinner.setDisplayedValues(mShortMonths);
         mMonthSpinner.setOnLongPressUpdateInterval(200);
         mMonthSpinner.setOnValueChangedListener(onChangeListener);
+        mMonthSpinner.setOnScrollListener(onScrollListener);
         mMonthSpinnerInput = NumberPickers.findEditText(mMonthSpinner);
 
         // year
-        mYearSpinner = (NumberPicker) inflater.inflate(R.layout.number_picker_year,
-                                                       mPickerContainer, false);
+        mYearSpinner = createSpinner(themedContext, inflater, R.layout.number_picker_year,
+                                     PickerLayouts.YEAR_WIDTH_DIP);
         mYearSpinner.setId(R.id.year);
-        mYearSpinner.setOnLongPressUpdateInterval(100);
+        mYearSpinner.setOnLongPressUpdateInterval(YEAR_LONG_PRESS_UPDATE_INTERVAL);
         mYearSpinner.setOnValueChangedListener(onChangeListener);
+        mYearSpinner.setOnScrollListener(onScrollListener);
         mYearSpinnerInput = NumberPickers.findEditText(mYearSpinner);
 
-        // initialize to current date
-        mCurrentDate.setTimeInMillis(System.currentTimeMillis());
+        // a typed year must be within the spinner range, so the year window is lifted while
+        // the year is being typed, see updateYearRange
+        final OnFocusChangeListener yearInputFocusListener =
+                mYearSpinnerInput.getOnFocusChangeListener();
+        mYearSpinnerInput.setOnFocusChangeListener(new OnFocusChangeListener() {
+            @Override
+            public void onFocusChange(View v, boolean hasFocus) {
+                mYearInputFocused = hasFocus;
+                if (hasFocus) {
+                    updateSpinners();
+                }
+                if (yearInputFocusListener != null) {
+                    yearInputFocusListener.onFocusChange(v, hasFocus);
+                }
+                if (!hasFocus) {
+                    updateSpinners();
+                }
+            }
+        });
+    }
 
-        // re-order the number spinners to match the current date format
-        reorderSpinners();
+    private void createWheel(Context themedContext) {
+        mWheel = new DateWheelView(themedContext);
+        mWheel.setFormatter(DateWheelView.DAY, new TwoDigitFormatter());
+        mWheel.setOnLongPressUpdateInterval(DateWheelView.DAY, 100);
+        mWheel.setOnLongPressUpdateInterval(DateWheelView.MONTH, 200);
+        mWheel.setOnLongPressUpdateInterval(DateWheelView.YEAR, YEAR_LONG_PRESS_UPDATE_INTERVAL);
+        mWheel.setOnColumnChangeListener(new DateWheelView.OnColumnChangeListener() {
+            @Override
+            public void onValueChange(DateWheelView view, int column, int oldVal, int newVal) {
+                onSpinnerChanged(column, oldVal, newVal);
+            }
 
-        // If not explicitly specified this view is important for accessibility.
-        if (getImportantForAccessibility() == View.IMPORTANT_FOR_ACCESSIBILITY_AUTO) {
-            setImportantForAccessibility(View.IMPORTANT_FOR_ACCESSIBILITY_YES);
-        }
+            @Override
+            public void onScrollStateChange(DateWheelView view, int column, int scrollState) {
+                onSpinnerScrollStateChanged(column, scrollState);
+            }
+        });
+    }
 
-        root.addView(this);
+    /**
+     * @param inflater The inflater for the layout, or null to build the spinner in code
+     */
+    private NumberPicker createSpinner(Context themedContext, LayoutInflater inflater, int layout,
+                                       int widthDip) {
+        if (inflater == null) {
+            return PickerLayouts.createSpinner(themedContext, widthDip);
+        }
+        return (NumberPicker) inflater.inflate(layout, mPickerContainer, false);
     }
 
     void init(int year, int monthOfYear, int dayOfMonth,
               boolean isDayShown, OnDateChangedListener onDateChangedListener) {
         mIsDayShown = isDayShown;
         setDate(year, monthOfYear, dayOfMonth);
+        mCenterYearWindow = true;
         updateSpinners();
         mOnDateChangedListener = onDateChangedListener;
         notifyDateChanged();
@@ -193,55 +340,109 @@ public class DatePicker extends FrameLayout {
             return;
         }
         setDate(year, month, dayOfMonth);
+        mCenterYearWindow = true;
         updateSpinners();
         notifyDateChanged();
     }
 
+    /**
+     * Sets how changes made with the spinners are delivered to the {@link OnDateChangedListener}
+     * and to accessibility services. Dates set in code are always delivered immediately.
+     *
+     * @param mode One of {@link #NOTIFY_IMMEDIATE}, {@link #NOTIFY_FRAME_COALESCED} or
+     *             {@link #NOTIFY_ON_SETTLE}
+     */
+    public void setNotificationMode(int mode) {
+        if (mode != NOTIFY_IMMEDIATE && mode != NOTIFY_FRAME_COALESCED
+                && mode != NOTIFY_ON_SETTLE) {
+            throw new IllegalArgumentException("Unknown notification mode " + mode);
+        }
+        if (mNotificationPending) {
+            notifyDateChanged();
+        }
+        mNotificationMode = mode;
+    }
+
+    public int getNotificationMode() {
+        return mNotificationMode;
+    }
+
+    /**
+     * Sets the dates that can't be picked. A disabled date is moved to the nearest enabled one,
+     * in the direction the spinners were moved in.
+     *
+     * @param dateConstraints The disabled dates, or null to enable all of them
+     */
+    public void setDateConstraints(DateConstraints dateConstraints) {
+        mDateConstraints = dateConstraints;
+        updateEnabledDates();
+        final int oldDate = mCurrentDate;
+        setDate(mCurrentDate);
+        updateSpinners();
+        if (mCurrentDate != oldDate) {
+            notifyDateChanged();
+        }
+    }
+
+    public DateConstraints getDateConstraints() {
+        return mDateConstraints;
+    }
+
     int getYear() {
-        return mCurrentDate.get(Calendar.YEAR);
+        return PackedDates.year(mCurrentDate);
     }
 
     int getMonth() {
-        return mCurrentDate.get(Calendar.MONTH);
+        return PackedDates.month(mCurrentDate);
     }
 
     int getDayOfMonth() {
-        return mCurrentDate.get(Calendar.DAY_OF_MONTH);
+        return PackedDates.dayOfMonth(mCurrentDate);
+    }
+
+    long getEpochDay() {
+        return PackedDates.toEpochDay(mCurrentDate);
     }
 
     void setMinDate(long minDate) {
-        mTempDate.setTimeInMillis(minDate);
-        if (mTempDate.get(Calendar.YEAR) == mMinDate.get(Calendar.YEAR)
-                && mTempDate.get(Calendar.DAY_OF_YEAR) == mMinDate.get(Calendar.DAY_OF_YEAR)) {
+        setPackedMinDate(PackedDates.fromMillis(minDate));
+    }
+
+    void setPackedMinDate(int packedMinDate) {
+        if (packedMinDate == mMinDate) {
             // Same day, no-op.
             return;
         }
-        mMinDate.setTimeInMillis(minDate);
-        if (mCurrentDate.before(mMinDate)) {
-            mCurrentDate.setTimeInMillis(mMinDate.getTimeInMillis());
-        }
+        mMinDate = packedMinDate;
+        updateEnabledDates();
+        setDate(mCurrentDate);
         updateSpinners();
     }
 
     void setMaxDate(long maxDate) {
-        mTempDate.setTimeInMillis(maxDate);
-        if (mTempDate.get(Calendar.YEAR) == mMaxDate.get(Calendar.YEAR)
-                && mTempDate.get(Calendar.DAY_OF_YEAR) == mMaxDate.get(Calendar.DAY_OF_YEAR)) {
+        setPackedMaxDate(PackedDates.fromMillis(maxDate));
+    }
+
+    void setPackedMaxDate(int packedMaxDate) {
+        if (packedMaxDate == mMaxDate) {
             // Same day, no-op.
             return;
         }
-        mMaxDate.setTimeInMillis(maxDate);
-        if (mCurrentDate.after(mMaxDate)) {
-            mCurrentDate.setTimeInMillis(mMaxDate.getTimeInMillis());
-        }
+        mMaxDate = packedMaxDate;
+        updateEnabledDates();
+        setDate(mCurrentDate);
         updateSpinners();
     }
 
     @Override
     public void setEnabled(boolean enabled) {
-        mDaySpinner.setEnabled(enabled);
-        mMonthSpinner.setEnabled(enabled);
-        mYearSpinner.setEnabled(enabled);
+        if (mWheel != null) {
+            mWheel.setEnabled(enabled);
+        } else {
+            mDaySpinner.setEnabled(enabled);
+            mMonthSpinner.setEnabled(enabled);
+            mYearSpinner.setEnabled(enabled);
+        }
         mIsEnabled = enabled;
     }
 
@@ -250,9 +451,27 @@ public class DatePicker extends FrameLayout {
         return mIsEnabled;
     }
 
+    @Override
+    protected void onDetachedFromWindow() {
+        // deliver the last date rather than dropping it with the frame callback
+        if (mNotificationPending) {
+            notifyDateChanged();
+        }
+        mScrollingSpinners = 0;
+        if (mMetrics != null) {
+            mMetrics.onSessionEnded(mUpdateCount);
+            mUpdateCount = 0;
+        }
+        super.onDetachedFromWindow();
+    }
+
     @Override
     public void onConfigurationChanged(Configuration newConfig) {
+        final long start = mMetrics != null ? elapsedRealtimeNanos() : 0;
         setCurrentLocale(newConfig.locale);
+        if (mMetrics != null) {
+            mMetrics.onLocaleApplied(elapsedRealtimeNanos() - start);
+        }
     }
 
     @Override
@@ -267,22 +486,9 @@ public class DatePicker extends FrameLayout {
      * @param locale The current locale.
      */
     protected void setCurrentLocale(Locale locale) {
-        mTempDate = getCalendarForLocale(mTempDate, locale);
-        mMinDate = getCalendarForLocale(mMinDate, locale);
-        mMaxDate = getCalendarForLocale(mMaxDate, locale);
-        mCurrentDate = getCalendarForLocale(mCurrentDate, locale);
-
-        mNumberOfMonths = mTempDate.getActualMaximum(Calendar.MONTH) + 1;
-        mShortMonths = new DateFormatSymbols().getShortMonths();
-
-        if (usingNumericMonths()) {
-            // We're in a locale where a date should either be all-numeric, or all-text.
-            // All-text would require custom NumberPicker formatters for day and year.
-            mShortMonths = new String[mNumberOfMonths];
-            for (int i = 0; i < mNumberOfMonths; ++i) {
-                mShortMonths[i] = String.format("%d", i + 1);
-            }
-        }
+        mLocaleData = PickerLocaleData.get(locale);
+        mNumberOfMonths = mLocaleData.numberOfMonths;
+        mShortMonths = mLocaleData.getShortMonths();
     }
 
     /**
@@ -290,24 +496,7 @@ public class DatePicker extends FrameLayout {
      * such as Chinese, Japanese, or Korean locales.
      */
     private boolean usingNumericMonths() {
-        return Character.isDigit(mShortMonths[Calendar.JANUARY].charAt(0));
-    }
-
-    /**
-     * Gets a calendar for locale bootstrapped with the value of a given calendar.
-     *
-     * @param oldCalendar The old calendar.
-     * @param locale      The locale.
-     */
-    private Calendar getCalendarForLocale(Calendar oldCalendar, Locale locale) {
-        if (oldCalendar == null) {
-            return Calendar.getInstance(locale);
-        } else {
-            final long currentTimeMillis = oldCalendar.getTimeInMillis();
-            Calendar newCalendar = Calendar.getInstance(locale);
-            newCalendar.setTimeInMillis(currentTimeMillis);
-            return newCalendar;
-        }
+        return mLocaleData.numericMonths;
     }
 
     /**
@@ -317,15 +506,15 @@ public class DatePicker extends FrameLayout {
      */
     private void reorderSpinners() {
         mPickerContainer.removeAllViews();
-        // We use numeric spinners for year and day, but textual months. Ask icu4c what
-        // order the user's locale uses for that combination. http://b/7207103.
-        String pattern = null;
-        if (android.os.Build.VERSION.SDK_INT < android.os.Build.VERSION_CODES.JELLY_BEAN_MR2) {
-            pattern = getOrderJellyBeanMr2();
-        } else {
-            pattern = DateFormat.getBestDateTimePattern(Locale.getDefault(), "yyyyMMMdd");
+        char[] order = mLocaleData.getDateFormatOrder();
+        if (order == null) {
+            order = ICU.getDateFormatOrder(getOrderJellyBeanMr2());
+        }
+        if (mWheel != null) {
+            mWheel.setColumnOrder(order);
+            mPickerContainer.addView(mWheel);
+            return;
         }
-        char[] order = ICU.getDateFormatOrder(pattern);
         final int spinnerCount = order.length;
         for (int i = 0; i < spinnerCount; i++) {
             switch (order[i]) {
@@ -368,76 +557,333 @@ public class DatePicker extends FrameLayout {
     }
 
     private boolean isNewDate(int year, int month, int dayOfMonth) {
-        return (mCurrentDate.get(Calendar.YEAR) != year
-                || mCurrentDate.get(Calendar.MONTH) != month
-                || mCurrentDate.get(Calendar.DAY_OF_MONTH) != dayOfMonth);
+        return mCurrentDate != PackedDates.pack(year, month, dayOfMonth);
     }
 
     private void setDate(int year, int month, int dayOfMonth) {
-        mCurrentDate.set(year, month, dayOfMonth);
-        if (mCurrentDate.before(mMinDate)) {
-            mCurrentDate.setTimeInMillis(mMinDate.getTimeInMillis());
-        } else if (mCurrentDate.after(mMaxDate)) {
-            mCurrentDate.setTimeInMillis(mMaxDate.getTimeInMillis());
+        setDate(PackedDates.normalize(year, month, dayOfMonth));
+    }
+
+    private void setDate(int date) {
+        setDate(date, 0);
+    }
+
+    /**
+     * @param direction The direction to move a disabled date in, positive for later dates,
+     *                  negative for earlier ones and zero for the closest one
+     */
+    private void setDate(int date, int direction) {
+        if (date < mMinDate) {
+            date = mMinDate;
+        } else if (date > mMaxDate) {
+            date = mMaxDate;
+        }
+        if (mDateConstraints != null) {
+            final int enabledDate = mDateConstraints.snap(date, direction, mMinDate, mMaxDate);
+            // keep the date if nothing can be picked at all
+            if (enabledDate != DateConstraints.NO_DATE) {
+                date = enabledDate;
+            }
+        }
+        mCurrentDate = date;
+    }
+
+    private void updateEnabledDates() {
+        mFirstEnabledDate = mMinDate;
+        mLastEnabledDate = mMaxDate;
+        if (mDateConstraints != null && mMinDate <= mMaxDate) {
+            final int first = mDateConstraints.nextEnabled(mMinDate, mMaxDate);
+            if (first != DateConstraints.NO_DATE) {
+                mFirstEnabledDate = first;
+                mLastEnabledDate = mDateConstraints.previousEnabled(mMaxDate, mMinDate);
+            }
         }
     }
 
     private void updateSpinners() {
-        // set the spinner ranges respecting the min and max dates
-        mDaySpinner.setVisibility(mIsDayShown ? View.VISIBLE : View.GONE);
-        if (mCurrentDate.equals(mMinDate)) {
-            mDaySpinner.setMinValue(mCurrentDate.get(Calendar.DAY_OF_MONTH));
-            mDaySpinner.setMaxValue(mCurrentDate.getActualMaximum(Calendar.DAY_OF_MONTH));
-            mDaySpinner.setWrapSelectorWheel(false);
-            mMonthSpinner.setDisplayedValues(null);
-            mMonthSpinner.setMinValue(mCurrentDate.get(Calendar.MONTH));
-            mMonthSpinner.setMaxValue(mCurrentDate.getActualMaximum(Calendar.MONTH));
-            mMonthSpinner.setWrapSelectorWheel(false);
-        } else if (mCurrentDate.equals(mMaxDate)) {
-            mDaySpinner.setMinValue(mCurrentDate.getActualMinimum(Calendar.DAY_OF_MONTH));
-            mDaySpinner.setMaxValue(mCurrentDate.get(Calendar.DAY_OF_MONTH));
-            mDaySpinner.setWrapSelectorWheel(false);
-            mMonthSpinner.setDisplayedValues(null);
-            mMonthSpinner.setMinValue(mCurrentDate.getActualMinimum(Calendar.MONTH));
-            mMonthSpinner.setMaxValue(mCurrentDate.get(Calendar.MONTH));
-            mMonthSpinner.setWrapSelectorWheel(false);
+        // set the spinner ranges respecting the min and max dates, only touching the spinners
+        // whose range, labels or value actually change as each setter relayouts the spinner
+        final int year = PackedDates.year(mCurrentDate);
+        final int month = PackedDates.month(mCurrentDate);
+        final int dayOfMonth = PackedDates.dayOfMonth(mCurrentDate);
+        updateYearLongPressUpdateInterval();
+        final int daysInMonth = PackedDates.daysInMonth(year, month);
+        int minDay;
+        int maxDay;
+        int minMonth;
+        int maxMonth;
+        final boolean wrap;
+        if (mCurrentDate == mMinDate) {
+            minDay = dayOfMonth;
+            maxDay = daysInMonth;
+            minMonth = month;
+            maxMonth = Calendar.DECEMBER;
+            wrap = false;
+        } else if (mCurrentDate == mMaxDate) {
+            minDay = 1;
+            maxDay = dayOfMonth;
+            minMonth = Calendar.JANUARY;
+            maxMonth = month;
+            wrap = false;
         } else {
-            mDaySpinner.setMinValue(1);
-            mDaySpinner.setMaxValue(mCurrentDate.getActualMaximum(Calendar.DAY_OF_MONTH));
-            mDaySpinner.setWrapSelectorWheel(true);
-            mMonthSpinner.setDisplayedValues(null);
-            mMonthSpinner.setMinValue(0);
-            mMonthSpinner.setMaxValue(11);
-            mMonthSpinner.setWrapSelectorWheel(true);
+            minDay = 1;
+            maxDay = daysInMonth;
+            minMonth = Calendar.JANUARY;
+            maxMonth = Calendar.DECEMBER;
+            wrap = true;
+        }
+        if (mDateConstraints != null && mDateConstraints.isEnabled(mCurrentDate)) {
+            // cut the days and months without an enabled date from the ends of the spinners,
+            // the current date bounding the searches
+            minDay = PackedDates.dayOfMonth(mDateConstraints.nextEnabled(
+                    Math.max(mMinDate, PackedDates.pack(year, month, minDay)), mCurrentDate));
+            maxDay = PackedDates.dayOfMonth(mDateConstraints.previousEnabled(
+                    Math.min(mMaxDate, PackedDates.pack(year, month, maxDay)), mCurrentDate));
+            minMonth = PackedDates.month(mDateConstraints.nextEnabled(
+                    Math.max(mMinDate, PackedDates.pack(year, minMonth, 1)), mCurrentDate));
+            maxMonth = PackedDates.month(mDateConstraints.previousEnabled(
+                    Math.min(mMaxDate, PackedDates.pack(year, maxMonth,
+                                                        PackedDates.daysInMonth(year, maxMonth))),
+                    mCurrentDate));
+        }
+        // wrapping would step over the days or months that were cut
+        final boolean dayWrap = wrap && minDay == 1 && maxDay == daysInMonth;
+        final boolean monthWrap = wrap && minMonth == Calendar.JANUARY
+                && maxMonth == Calendar.DECEMBER;
+        final int minYear = PackedDates.year(mFirstEnabledDate);
+        final int maxYear = PackedDates.year(mLastEnabledDate);
+
+        if (mWheel != null) {
+            mWheel.setColumnVisible(DateWheelView.DAY, mIsDayShown);
+            mWheel.setRange(DateWheelView.DAY, minDay, maxDay, dayWrap, null);
+            mWheel.setRange(DateWheelView.MONTH, minMonth, maxMonth, monthWrap,
+                            mLocaleData.getMonthLabels(minMonth, maxMonth));
+            // the wheel only formats the years it draws, so it takes any range as it is
+            mWheel.setRange(DateWheelView.YEAR, minYear, maxYear, false, null);
+            mWheel.setValue(DateWheelView.YEAR, year);
+            mWheel.setValue(DateWheelView.MONTH, month);
+            mWheel.setValue(DateWheelView.DAY, dayOfMonth);
+            return;
         }
 
+        mDaySpinner.setVisibility(mIsDayShown ? View.VISIBLE : View.GONE);
+        updateRange(mDaySpinner, minDay, maxDay, dayWrap, dayWrap != mDaySpinnerWrap, null);
+        mDaySpinnerWrap = dayWrap;
+
         // make sure the month names are a zero based array
         // with the months in the month spinner
-        String[] displayedValues = Arrays.copyOfRange(mShortMonths,
-                                                      mMonthSpinner.getMinValue(),
-                                                      mMonthSpinner.getMaxValue() + 1);
-        mMonthSpinner.setDisplayedValues(displayedValues);
+        final boolean monthsChanged = updateRange(mMonthSpinner, minMonth, maxMonth, monthWrap,
+                                                  monthWrap != mMonthSpinnerWrap,
+                                                  mLocaleData.getMonthLabels(minMonth, maxMonth));
+        mMonthSpinnerWrap = monthWrap;
 
-        // year spinner range does not change based on the current date
-        mYearSpinner.setMinValue(mMinDate.get(Calendar.YEAR));
-        mYearSpinner.setMaxValue(mMaxDate.get(Calendar.YEAR));
-        mYearSpinner.setWrapSelectorWheel(false);
+        updateYearRange(year, minYear, maxYear);
 
         // set the spinner values
-        mYearSpinner.setValue(mCurrentDate.get(Calendar.YEAR));
-        mMonthSpinner.setValue(mCurrentDate.get(Calendar.MONTH));
-        mDaySpinner.setValue(mCurrentDate.get(Calendar.DAY_OF_MONTH));
+        updateValue(mYearSpinner, year);
+        updateValue(mMonthSpinner, month);
+        updateValue(mDaySpinner, dayOfMonth);
 
-        if (usingNumericMonths()) {
+        // the spinner resets the input type whenever its displayed values are set
+        if (monthsChanged && usingNumericMonths()) {
             mMonthSpinnerInput.setRawInputType(InputType.TYPE_CLASS_NUMBER);
         }
     }
 
+    /**
+     * Sets the range, wrapping and labels of a spinner if they differ from what it shows.
+     *
+     * @param wrapChanged     Whether the wrapping differs from the one last requested, as the
+     *                        spinner may report it disabled when its range is too small
+     * @param displayedValues The labels for the range, or null to show the values. Labels are
+     *                        compared by reference.
+     * @return whether the range or labels were set
+     */
+    private static boolean updateRange(NumberPicker spinner, int minValue, int maxValue,
+                                       boolean wrap, boolean wrapChanged,
+                                       String[] displayedValues) {
+        if (spinner.getMinValue() == minValue && spinner.getMaxValue() == maxValue
+                && spinner.getDisplayedValues() == displayedValues) {
+            if (wrapChanged) {
+                spinner.setWrapSelectorWheel(wrap);
+            }
+            return false;
+        }
+        // the old labels must not be used to draw the new range
+        if (spinner.getDisplayedValues() != null) {
+            spinner.setDisplayedValues(null);
+        }
+        spinner.setMinValue(minValue);
+        spinner.setMaxValue(maxValue);
+        // older spinners reset the wrapping whenever the range changes
+        spinner.setWrapSelectorWheel(wrap);
+        if (displayedValues != null) {
+            spinner.setDisplayedValues(displayedValues);
+        }
+        return true;
+    }
+
+    /**
+     * Sets the year spinner range from the first and last enabled dates. Ranges of more than a couple of
+     * hundred years are cut down to a window around the selected year, moved along as the year
+     * nears either end, as NumberPicker caches the label of every value it scrolls past until
+     * its range is set again. Dates set in code get a window centred on them.
+     */
+    private void updateYearRange(int year, int minYear, int maxYear) {
+        int windowMin = minYear;
+        int windowMax = maxYear;
+        if (!mYearInputFocused && maxYear - minYear > 2 * YEAR_WINDOW) {
+            windowMin = mYearSpinner.getMinValue();
+            windowMax = mYearSpinner.getMaxValue();
+            final boolean nearMin = year - windowMin < YEAR_WINDOW / 2 && windowMin > minYear;
+            final boolean nearMax = windowMax - year < YEAR_WINDOW / 2 && windowMax < maxYear;
+            if (mCenterYearWindow || nearMin || nearMax || windowMin < minYear
+                    || windowMax > maxYear
+                    || windowMax - windowMin != 2 * YEAR_WINDOW) {
+                windowMin = Math.max(minYear, Math.min(maxYear - 2 * YEAR_WINDOW,
+                                                       year - YEAR_WINDOW));
+                windowMax = windowMin + 2 * YEAR_WINDOW;
+            }
+        }
+        mCenterYearWindow = false;
+        updateRange(mYearSpinner, windowMin, windowMax, false, false, null);
+    }
+
+    /**
+     * Scales the year long press interval with the range, so that long ranges can be crossed
+     * without lifting the finger again and again.
+     */
+    private void updateYearLongPressUpdateInterval() {
+        final int years = PackedDates.year(mMaxDate) - PackedDates.year(mMinDate) + 1;
+        long interval = YEAR_LONG_PRESS_UPDATE_INTERVAL;
+        if (years > YEAR_LONG_PRESS_RANGE) {
+            interval = Math.max(MIN_LONG_PRESS_UPDATE_INTERVAL,
+                                (long) YEAR_LONG_PRESS_UPDATE_INTERVAL * YEAR_LONG_PRESS_RANGE
+                                        / years);
+        }
+        if (interval == mYearLongPressUpdateInterval) {
+            return;
+        }
+        mYearLongPressUpdateInterval = interval;
+        if (mWheel != null) {
+            mWheel.setOnLongPressUpdateInterval(DateWheelView.YEAR, interval);
+        } else {
+            mYearSpinner.setOnLongPressUpdateInterval(interval);
+        }
+    }
+
+    private static void updateValue(NumberPicker spinner, int value) {
+        if (spinner.getValue() != value) {
+            spinner.setValue(value);
+        }
+    }
+
+    /**
+     * Notifies a change made with the spinners according to the notification mode.
+     */
+    private void scheduleDateChanged() {
+        switch (mNotificationMode) {
+            case NOTIFY_FRAME_COALESCED:
+                if (!mNotificationPending) {
+                    mNotificationPending = true;
+                    Choreographer.getInstance().postFrameCallback(mNotifyFrameCallback);
+                }
+                break;
+            case NOTIFY_ON_SETTLE:
+                mNotificationPending = true;
+                // taps, typed values and long presses change the date without scrolling, so
+                // it is delivered once they stop for a while
+                if (mScrollingSpinners == 0) {
+                    final Choreographer choreographer = Choreographer.getInstance();
+                    choreographer.removeFrameCallback(mNotifyFrameCallback);
+                    choreographer.postFrameCallbackDelayed(mNotifyFrameCallback,
+                                                           SETTLE_DELAY_MILLIS);
+                }
+                break;
+            default:
+                notifyDateChanged();
+                break;
+        }
+    }
+
+    /**
+     * Applies a step of one of the spinners, taking care of wrapping to update greater fields.
+     *
+     * @param field One of {@link DateWheelView#DAY}, {@link DateWheelView#MONTH} or
+     *              {@link DateWheelView#YEAR}
+     */
+    private void onSpinnerChanged(int field, int oldVal, int newVal) {
+        final long start = mMetrics != null ? elapsedRealtimeNanos() : 0;
+        final int tempDate;
+        switch (field) {
+            case DateWheelView.DAY:
+                tempDate = PackedDates.rollDay(mCurrentDate, oldVal, newVal);
+                break;
+            case DateWheelView.MONTH:
+                tempDate = PackedDates.rollMonth(mCurrentDate, oldVal, newVal);
+                break;
+            case DateWheelView.YEAR:
+                tempDate = PackedDates.withYear(mCurrentDate, newVal);
+                break;
+            default:
+                throw new IllegalArgumentException();
+        }
+        // now set the date to the adjusted one, moving off disabled dates the same way
+        setDate(tempDate, tempDate - mCurrentDate);
+        updateSpinners();
+        scheduleDateChanged();
+        if (mMetrics != null) {
+            mUpdateCount++;
+            mMetrics.onDateChangeHandled(elapsedRealtimeNanos() - start);
+        }
+    }
+
+    private void onSpinnerScrollStateChanged(int field, int scrollState) {
+        if (scrollState != OnScrollListener.SCROLL_STATE_IDLE) {
+            if (mScrollingSpinners == 0 && mNotificationPending
+                    && mNotificationMode == NOTIFY_ON_SETTLE) {
+                // the scroll settles later than the steps before it
+                Choreographer.getInstance().removeFrameCallback(mNotifyFrameCallback);
+            }
+            mScrollingSpinners |= 1 << field;
+            return;
+        }
+        mScrollingSpinners &= ~(1 << field);
+        if (mScrollingSpinners == 0 && mNotificationPending
+                && mNotificationMode == NOTIFY_ON_SETTLE) {
+            notifyDateChanged();
+        }
+    }
+
+    /**
+     * @return the clock of the {@link PickerMetrics} timings
+     */
+    static long elapsedRealtimeNanos() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            return SystemClock.elapsedRealtimeNanos();
+        }
+        return System.nanoTime();
+    }
+
+    private int getSpinnerField(NumberPicker spinner) {
+        if (spinner == mDaySpinner) {
+            return DateWheelView.DAY;
+        } else if (spinner == mMonthSpinner) {
+            return DateWheelView.MONTH;
+        } else if (spinner == mYearSpinner) {
+            return DateWheelView.YEAR;
+        }
+        throw new IllegalArgumentException();
+    }
 
     /**
      * Notifies the listener, if such, for a change in the selected date.
      */
     private void notifyDateChanged() {
+        if (mNotificationPending) {
+            mNotificationPending = false;
+            Choreographer.getInstance().removeFrameCallback(mNotifyFrameCallback);
+        }
         sendAccessibilityEvent(AccessibilityEvent.TYPE_VIEW_SELECTED);
         if (mOnDateChangedListener != null) {
             mOnDateChangedListener.onDateChanged(this, getYear(), getMonth(),
@@ -471,7 +917,7 @@ public class DatePicker extends FrameLayout {
         // value and having the IME up makes no sense.
         InputMethodManager inputMethodManager = (InputMethodManager) getContext().getSystemService(
                 Context.INPUT_METHOD_SERVICE);
-        if (inputMethodManager != null) {
+        if (inputMethodManager != null && mWheel == null) {
             if (inputMethodManager.isActive(mYearSpinnerInput)) {
                 mYearSpinnerInput.clearFocus();
                 inputMethodManager.hideSoftInputFromWindow(getWindowToken(), 0);
@@ -496,12 +942,11 @@ public class DatePicker extends FrameLayout {
     protected void onRestoreInstanceState(Parcelable state) {
         SavedState ss = (SavedState) state;
         super.onRestoreInstanceState(ss.getSuperState());
-        mCurrentDate = Calendar.getInstance();
-        mCurrentDate.setTimeInMillis(ss.currentDate);
-        mMinDate = Calendar.getInstance();
-        mMinDate.setTimeInMillis(ss.minDate);
-        mMaxDate = Calendar.getInstance();
-        mMaxDate.setTimeInMillis(ss.maxDate);
+        mCurrentDate = ss.currentDate;
+        mMinDate = ss.minDate;
+        mMaxDate = ss.maxDate;
+        updateEnabledDates();
+        mCenterYearWindow = true;
         updateSpinners();
     }
 
@@ -519,23 +964,23 @@ public class DatePicker extends FrameLayout {
                 return new SavedState[size];
             }
         };
-        final long currentDate;
-        final long minDate;
-        final long maxDate;
+        final int currentDate;
+        final int minDate;
+        final int maxDate;
         final boolean isDaySpinnerShown;
 
         /**
          * Constructor called from {@link DatePicker#onSaveInstanceState()}
          */
         SavedState(Parcelable superState,
-                   Calendar currentDate,
-                   Calendar minDate,
-                   Calendar maxDate,
+                   int currentDate,
+                   int minDate,
+                   int maxDate,
                    boolean isDaySpinnerShown) {
             super(superState);
-            this.currentDate = currentDate.getTimeInMillis();
-            this.minDate = minDate.getTimeInMillis();
-            this.maxDate = maxDate.getTimeInMillis();
+            this.currentDate = currentDate;
+            this.minDate = minDate;
+            this.maxDate = maxDate;
             this.isDaySpinnerShown = isDaySpinnerShown;
         }
 
@@ -544,18 +989,18 @@ public class DatePicker extends FrameLayout {
          */
         private SavedState(Parcel in) {
             super(in);
-            this.currentDate = in.readLong();
-            this.minDate = in.readLong();
-            this.maxDate = in.readLong();
+            this.currentDate = in.readInt();
+            this.minDate = in.readInt();
+            this.maxDate = in.readInt();
             this.isDaySpinnerShown = in.readByte() != 0;
         }
 
         @Override
         public void writeToParcel(Parcel dest, int flags) {
             super.writeToParcel(dest, flags);
-            dest.writeLong(currentDate);
-            dest.writeLong(minDate);
-            dest.writeLong(maxDate);
+            dest.writeInt(currentDate);
+            dest.writeInt(minDate);
+            dest.writeInt(maxDate);
             dest.writeByte(isDaySpinnerShown ? (byte) 1 : (byte) 0);
         }
     }
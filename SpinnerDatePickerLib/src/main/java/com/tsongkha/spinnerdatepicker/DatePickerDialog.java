@@ -10,6 +10,7 @@ import android.view.ViewGroup;
 import androidx.appcompat.app.AlertDialog;
 import java.text.DateFormat;
 import java.util.Calendar;
+import java.util.Locale;
 
 /**
  * A fork of the Android Open Source Project DatePickerDialog class
@@ -23,11 +24,22 @@ public class DatePickerDialog extends AlertDialog implements OnClickListener,
     private static final String TITLE_SHOWN = "title_enabled";
     private static final String CUSTOM_TITLE = "custom_title";
 
+    // 64 formatted titles are kept
+    private static final int TITLE_CACHE_BITS = 6;
+
     private final DatePicker mDatePicker;
     private final OnDateSetListener mCallBack;
+    private final OnEpochDaySetListener mEpochDayCallBack;
     private final OnDateCancelListener mOnCancel;
     private final DateFormat mTitleDateFormat;
 
+    // direct mapped cache of titles keyed by PackedDates, so spinning back over a date reuses
+    // its title without formatting
+    private final int[] mTitleKeys = new int[1 << TITLE_CACHE_BITS];
+    private final String[] mTitles = new String[1 << TITLE_CACHE_BITS];
+    private Calendar mTitleCalendar;
+    private CharSequence mTitle;
+
     private boolean mIsDayShown = true;
     private boolean mIsTitleShown = true;
     private String mCustomTitle = "";
@@ -46,6 +58,20 @@ public class DatePickerDialog extends AlertDialog implements OnClickListener,
         void onDateSet(DatePicker view, int year, int monthOfYear, int dayOfMonth);
     }
 
+    /**
+     * The callback used to indicate the user is done filling in the date, with the date as a
+     * single number.
+     */
+    public interface OnEpochDaySetListener {
+        /**
+         * @param view     The view associated with this listener.
+         * @param epochDay The date that was set, as the number of days since 1970-01-01 in the
+         *                 Gregorian calendar. This is the same count as
+         *                 {@code LocalDate.toEpochDay()}.
+         */
+        void onDateSet(DatePicker view, long epochDay);
+    }
+
     /**
      * Callback for when things are cancelled
      */
@@ -58,42 +84,124 @@ public class DatePickerDialog extends AlertDialog implements OnClickListener,
         void onCancelled(DatePicker view);
     }
 
+    /**
+     * Callback for when a dialog built by
+     * {@link SpinnerDatePickerDialogBuilder#buildAsync(OnDialogReadyListener)} is ready
+     */
+    public interface OnDialogReadyListener {
+        /**
+         * Called on the main thread once the dialog can be shown.
+         *
+         * @param dialog The dialog that was built.
+         */
+        void onDialogReady(DatePickerDialog dialog);
+    }
+
     DatePickerDialog(Context context,
                      int theme,
                      int spinnerTheme,
                      OnDateSetListener callBack,
+                     OnEpochDaySetListener epochDayCallBack,
                      OnDateCancelListener onCancel,
-                     Calendar defaultDate,
-                     Calendar minDate,
-                     Calendar maxDate,
+                     int defaultDate,
+                     int minDate,
+                     int maxDate,
                      boolean isDayShown,
                      boolean isTitleShown,
-                     String customTitle) {
+                     String customTitle,
+                     int notificationMode,
+                     DateConstraints dateConstraints,
+                     PickerMetrics metrics,
+                     boolean programmaticLayout,
+                     boolean wheelRenderer) {
+        this(context, theme, spinnerTheme, callBack, epochDayCallBack, onCancel, defaultDate,
+             minDate, maxDate,
+             isDayShown, isTitleShown, customTitle, notificationMode, dateConstraints, metrics,
+             programmaticLayout, wheelRenderer, null);
+    }
+
+    /**
+     * @param defaultDate The initial date, packed by {@link PackedDates} as are the min and max
+     *                    dates
+     * @param datePicker A picker prepared by {@link #createDatePicker}, or null to create it here
+     */
+    DatePickerDialog(Context context,
+                     int theme,
+                     int spinnerTheme,
+                     OnDateSetListener callBack,
+                     OnEpochDaySetListener epochDayCallBack,
+                     OnDateCancelListener onCancel,
+                     int defaultDate,
+                     int minDate,
+                     int maxDate,
+                     boolean isDayShown,
+                     boolean isTitleShown,
+                     String customTitle,
+                     int notificationMode,
+                     DateConstraints dateConstraints,
+                     PickerMetrics metrics,
+                     boolean programmaticLayout,
+                     boolean wheelRenderer,
+                     DatePicker datePicker) {
         super(context, theme);
+        final long start = metrics != null ? DatePicker.elapsedRealtimeNanos() : 0;
 
         mCallBack = callBack;
+        mEpochDayCallBack = epochDayCallBack;
         mOnCancel = onCancel;
-        mTitleDateFormat = DateFormat.getDateInstance(DateFormat.LONG);
+        mTitleDateFormat = PickerLocaleData.get(Locale.getDefault())
+                .newTitleDateFormat();
         mIsDayShown = isDayShown;
         mIsTitleShown = isTitleShown;
         mCustomTitle = customTitle;
 
-        updateTitle(defaultDate);
+        updateTitle(PackedDates.year(defaultDate), PackedDates.month(defaultDate),
+                    PackedDates.dayOfMonth(defaultDate));
 
         setButton(BUTTON_POSITIVE, context.getText(android.R.string.ok),
                 this);
         setButton(BUTTON_NEGATIVE, context.getText(android.R.string.cancel),
                 this);
 
-        LayoutInflater inflater =
-                (LayoutInflater) context.getSystemService(Context.LAYOUT_INFLATER_SERVICE);
-        View view = inflater.inflate(R.layout.date_picker_dialog_container, null);
-        setView(view);
-        mDatePicker = new DatePicker((ViewGroup) view, spinnerTheme);
-        mDatePicker.setMinDate(minDate.getTimeInMillis());
-        mDatePicker.setMaxDate(maxDate.getTimeInMillis());
-        mDatePicker.init(defaultDate.get(Calendar.YEAR), defaultDate.get(Calendar.MONTH), defaultDate.get(Calendar.DAY_OF_MONTH), isDayShown, this);
+        if (datePicker == null) {
+            datePicker = createDatePicker(context, spinnerTheme, programmaticLayout,
+                                          wheelRenderer, metrics, minDate, maxDate);
+        }
+        setView((View) datePicker.getParent());
+        mDatePicker = datePicker;
+        mDatePicker.setNotificationMode(notificationMode);
+        mDatePicker.setDateConstraints(dateConstraints);
+        mDatePicker.init(PackedDates.year(defaultDate), PackedDates.month(defaultDate), PackedDates.dayOfMonth(defaultDate), isDayShown, this);
 
+        if (metrics != null) {
+            metrics.onDialogCreated(DatePicker.elapsedRealtimeNanos() - start);
+        }
+    }
+
+    /**
+     * Inflates the picker and its container and sets its range. Nothing here needs the dialog,
+     * so it can run ahead of it and off the main thread.
+     */
+    static DatePicker createDatePicker(Context context, int spinnerTheme,
+                                       boolean programmaticLayout, boolean wheelRenderer,
+                                       PickerMetrics metrics, int minDate, int maxDate) {
+        final long start = metrics != null ? DatePicker.elapsedRealtimeNanos() : 0;
+        final View view;
+        if (programmaticLayout) {
+            view = PickerLayouts.createDialogContainer(context);
+        } else {
+            LayoutInflater inflater =
+                    (LayoutInflater) context.getSystemService(Context.LAYOUT_INFLATER_SERVICE);
+            view = inflater.inflate(R.layout.date_picker_dialog_container, null);
+        }
+        DatePicker datePicker = new DatePicker((ViewGroup) view, spinnerTheme, programmaticLayout,
+                                               wheelRenderer, metrics);
+        datePicker.setPackedMinDate(minDate);
+        datePicker.setPackedMaxDate(maxDate);
+        if (metrics != null) {
+            metrics.onPickerInflated(DatePicker.elapsedRealtimeNanos() - start);
+        }
+        return datePicker;
     }
 
     @Override
@@ -105,6 +213,10 @@ public class DatePickerDialog extends AlertDialog implements OnClickListener,
                     mCallBack.onDateSet(mDatePicker, mDatePicker.getYear(),
                             mDatePicker.getMonth(), mDatePicker.getDayOfMonth());
                 }
+                if (mEpochDayCallBack != null) {
+                    mDatePicker.clearFocus();
+                    mEpochDayCallBack.onDateSet(mDatePicker, mDatePicker.getEpochDay());
+                }
                 break;
             }
             case BUTTON_NEGATIVE: {
@@ -119,22 +231,45 @@ public class DatePickerDialog extends AlertDialog implements OnClickListener,
 
     @Override
     public void onDateChanged(DatePicker view, int year, int monthOfYear, int dayOfMonth) {
-        Calendar updatedDate = Calendar.getInstance();
-        updatedDate.set(Calendar.YEAR, year);
-        updatedDate.set(Calendar.MONTH, monthOfYear);
-        updatedDate.set(Calendar.DAY_OF_MONTH, dayOfMonth);
-        updateTitle(updatedDate);
+        updateTitle(year, monthOfYear, dayOfMonth);
     }
 
-    private void updateTitle(Calendar updatedDate) {
+    private void updateTitle(int year, int monthOfYear, int dayOfMonth) {
+        final CharSequence title;
         if (mIsTitleShown && mCustomTitle != null && !mCustomTitle.isEmpty()) {
-            setTitle(mCustomTitle);
+            title = mCustomTitle;
         } else if (mIsTitleShown) {
-            final DateFormat dateFormat = mTitleDateFormat;
-            setTitle(dateFormat.format(updatedDate.getTime()));
+            title = getDateTitle(PackedDates.pack(year, monthOfYear, dayOfMonth));
         } else {
-            setTitle(" ");
+            title = " ";
+        }
+        // the same title is the same string, so there is no need to lay it out again
+        if (title != mTitle) {
+            setTitle(title);
+        }
+    }
+
+    @Override
+    public void setTitle(CharSequence title) {
+        mTitle = title;
+        super.setTitle(title);
+    }
+
+    private String getDateTitle(int date) {
+        final int index = (date * 0x9E3779B9) >>> (32 - TITLE_CACHE_BITS);
+        String title = mTitles[index];
+        if (title == null || mTitleKeys[index] != date) {
+            if (mTitleCalendar == null) {
+                mTitleCalendar = Calendar.getInstance();
+            }
+            mTitleCalendar.clear();
+            mTitleCalendar.set(PackedDates.year(date), PackedDates.month(date),
+                               PackedDates.dayOfMonth(date));
+            title = mTitleDateFormat.format(mTitleCalendar.getTime());
+            mTitleKeys[index] = date;
+            mTitles[index] = title;
         }
+        return title;
     }
 
     @Override
@@ -156,11 +291,7 @@ public class DatePickerDialog extends AlertDialog implements OnClickListener,
         int day = savedInstanceState.getInt(DAY);
         mIsTitleShown = savedInstanceState.getBoolean(TITLE_SHOWN);
         mCustomTitle = savedInstanceState.getString(CUSTOM_TITLE);
-        Calendar c = Calendar.getInstance();
-        c.set(Calendar.YEAR, year);
-        c.set(Calendar.MONTH, month);
-        c.set(Calendar.DAY_OF_MONTH, day);
-        updateTitle(c);
+        updateTitle(year, month, day);
         mDatePicker.init(year, month, day, mIsDayShown, this);
     }
 }
\ No newline at end of file
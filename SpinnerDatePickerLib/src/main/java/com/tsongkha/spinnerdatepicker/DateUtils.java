@@ -17,6 +17,8 @@ import android.content.Context;
 import android.text.format.DateFormat;
 import android.text.format.Time;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
@@ -24,6 +26,8 @@ import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.Locale;
 import java.util.TimeZone;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 /**
  * Utility methods for processing dates.
  */
@@ -34,6 +38,18 @@ public class DateUtils {
      * Let's add a one-off hack for that day of the year
      */
     public static final String NO_YEAR_DATE_FEB29TH = "--02-29";
+    /**
+     * Written by the bulk parsing methods for strings that do not look like a date.
+     */
+    public static final long PARSE_FAILED = Long.MIN_VALUE;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    // Inputs smaller than twice this are parsed on the calling thread
+    private static final int PARALLEL_THRESHOLD = 2048;
+    // Same for the arithmetic, which is much cheaper per element than parsing
+    private static final int ARITHMETIC_PARALLEL_THRESHOLD = 16384;
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+    // the month and day of month bits of a packed date, which order dates within a year
+    private static final int PACKED_DAY_OF_YEAR_MASK = 0x1FF;
     // Variations of ISO 8601 date format.  Do not change the order - it does affect the
     // result in ambiguous cases.
     private static final SimpleDateFormat[] DATE_FORMATS = {
@@ -62,6 +78,194 @@ public class DateUtils {
      * If not, null is returned.
      */
     public static Calendar parseDate(String string, boolean mustContainYear) {
+        // Unfortunately, we can't parse Feb 29th correctly, so let's handle this day seperately
+        if (!mustContainYear && NO_YEAR_DATE_FEB29TH.equals(string)) {
+            return getUtcDate(0, Calendar.FEBRUARY, 29);
+        }
+        final IsoDateParser parser = IsoDateParser.get();
+        final long millis = parser.setText(string) ? parser.parse(mustContainYear)
+                : IsoDateParser.UNSUPPORTED;
+        if (millis == IsoDateParser.NO_MATCH) {
+            return null;
+        } else if (millis == IsoDateParser.UNSUPPORTED) {
+            return parseDateWithFormats(string, mustContainYear);
+        }
+        return getUtcDate(millis, parser.isNoYear());
+    }
+
+    /**
+     * Parses each of the supplied strings as {@link #parseDate(String, boolean)} does, writing
+     * the time in milliseconds of each date to the corresponding index of the output array.
+     * Large inputs are split across a shared pool of background threads.
+     *
+     * @param in The string representations of the dates. Null elements are treated as strings
+     * that do not look like a date.
+     * @param mustContainYear If true, the strings are parsed as dates containing a year. If
+     * false, strings are parsed into valid dates even if the year field is missing.
+     * @param outEpochMillis Receives the same value as {@code parseDate(in[i], mustContainYear)
+     * .getTimeInMillis()} for each string, or {@link #PARSE_FAILED}. Must be at least as long as
+     * the input.
+     * @return The number of strings that were successfully parsed.
+     * @see DateParseCache#parseDates(String[], boolean, long[])
+     */
+    public static int parseDates(String[] in, boolean mustContainYear, long[] outEpochMillis) {
+        return parseDates(in, mustContainYear, outEpochMillis, ParallelRanges.defaultExecutor());
+    }
+
+    /**
+     * Same as {@link #parseDates(String[], boolean, long[])}, splitting large inputs across the
+     * given executor instead of the shared pool. The calling thread takes part in the work and
+     * the method returns once all the strings are parsed.
+     *
+     * @param executor The executor to use, or null to parse on the calling thread only
+     */
+    public static int parseDates(final String[] in, final boolean mustContainYear,
+                                 final long[] outEpochMillis, Executor executor) {
+        if (outEpochMillis.length < in.length) {
+            throw new IllegalArgumentException("Output array is shorter than the input");
+        }
+        final AtomicInteger parsed = new AtomicInteger();
+        ParallelRanges.run(in.length, PARALLEL_THRESHOLD, executor, new ParallelRanges.Range() {
+            @Override
+            public void run(int from, int to) {
+                int count = 0;
+                for (int i = from; i < to; i++) {
+                    final long millis = parseDateToMillis(in[i], mustContainYear);
+                    outEpochMillis[i] = millis;
+                    if (millis != PARSE_FAILED) {
+                        count++;
+                    }
+                }
+                parsed.addAndGet(count);
+            }
+        });
+        return parsed.get();
+    }
+
+    /**
+     * Primitive counterpart of {@link #parseDate(String, boolean)}.
+     *
+     * @param string The string representation of the provided date. Null is treated as a
+     * string that does not look like a date.
+     * @param mustContainYear If true, the string is parsed as a date containing a year. If false,
+     * the string is parsed into a valid date even if the year field is missing.
+     * @return The same value as {@code parseDate(string, mustContainYear).getTimeInMillis()}, or
+     * {@link #PARSE_FAILED} if the string does not look like a date.
+     */
+    public static long parseDateToMillis(String string, boolean mustContainYear) {
+        if (string == null) {
+            return PARSE_FAILED;
+        }
+        final IsoDateParser parser = IsoDateParser.get();
+        if (parser.setText(string)) {
+            final long millis = parseLoadedText(parser, mustContainYear);
+            if (millis != IsoDateParser.UNSUPPORTED) {
+                return millis;
+            }
+        }
+        return parseDateWithFormatsToMillis(string, mustContainYear);
+    }
+
+    /**
+     * Same as {@link #parseDateToMillis(String, boolean)} for the chars in [start, end) of the
+     * text, without creating a String for dates in any of the ISO 8601 variations.
+     */
+    public static long parseDateToMillis(CharSequence text, int start, int end,
+                                         boolean mustContainYear) {
+        checkRange(start, end, text.length());
+        final IsoDateParser parser = IsoDateParser.get();
+        if (parser.setText(text, start, end)) {
+            final long millis = parseLoadedText(parser, mustContainYear);
+            if (millis != IsoDateParser.UNSUPPORTED) {
+                return millis;
+            }
+        }
+        return parseDateWithFormatsToMillis(text.subSequence(start, end).toString(),
+                mustContainYear);
+    }
+
+    /**
+     * Same as {@link #parseDateToMillis(String, boolean)} for the chars in [start, end) of the
+     * array, without creating a String for dates in any of the ISO 8601 variations.
+     */
+    public static long parseDateToMillis(char[] text, int start, int end,
+                                         boolean mustContainYear) {
+        checkRange(start, end, text.length);
+        final IsoDateParser parser = IsoDateParser.get();
+        if (parser.setText(text, start, end)) {
+            final long millis = parseLoadedText(parser, mustContainYear);
+            if (millis != IsoDateParser.UNSUPPORTED) {
+                return millis;
+            }
+        }
+        return parseDateWithFormatsToMillis(new String(text, start, end - start),
+                mustContainYear);
+    }
+
+    /**
+     * Same as {@link #parseDateToMillis(String, boolean)} for the bytes in [start, end) of the
+     * buffer, which may be direct or memory mapped. Dates in any of the ISO 8601 variations are
+     * plain ASCII and are parsed without creating a String; anything else is decoded as UTF-8.
+     * The position and limit of the buffer are not changed.
+     *
+     * @param start The absolute index of the first byte
+     * @param end The absolute index after the last byte, at most the limit of the buffer
+     */
+    public static long parseDateToMillis(ByteBuffer buffer, int start, int end,
+                                         boolean mustContainYear) {
+        checkRange(start, end, buffer.limit());
+        final IsoDateParser parser = IsoDateParser.get();
+        if (parser.setText(buffer, start, end)) {
+            final long millis = parseLoadedText(parser, mustContainYear);
+            if (millis != IsoDateParser.UNSUPPORTED) {
+                return millis;
+            }
+        }
+        final byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return parseDateWithFormatsToMillis(new String(bytes, UTF_8), mustContainYear);
+    }
+
+    /**
+     * @return the time in milliseconds of the text loaded into the parser,
+     * {@link #PARSE_FAILED} or {@link IsoDateParser#UNSUPPORTED}
+     */
+    private static long parseLoadedText(IsoDateParser parser, boolean mustContainYear) {
+        // Unfortunately, we can't parse Feb 29th correctly, so let's handle this day seperately
+        if (!mustContainYear && parser.textEquals(NO_YEAR_DATE_FEB29TH)) {
+            return IsoDateParser.yearZeroMillis(Calendar.FEBRUARY, 29);
+        }
+        final long millis = parser.parse(mustContainYear);
+        if (millis == IsoDateParser.NO_MATCH) {
+            return PARSE_FAILED;
+        } else if (millis == IsoDateParser.UNSUPPORTED) {
+            return IsoDateParser.UNSUPPORTED;
+        }
+        return parser.isNoYear() ? IsoDateParser.withYearZero(millis) : millis;
+    }
+
+    private static long parseDateWithFormatsToMillis(String string, boolean mustContainYear) {
+        if (!mustContainYear && NO_YEAR_DATE_FEB29TH.equals(string)) {
+            return IsoDateParser.yearZeroMillis(Calendar.FEBRUARY, 29);
+        }
+        final Calendar calendar = parseDateWithFormats(string, mustContainYear);
+        return calendar == null ? PARSE_FAILED : calendar.getTimeInMillis();
+    }
+
+    private static void checkRange(int start, int end, int length) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException(
+                    "start " + start + ", end " + end + ", length " + length);
+        }
+    }
+
+    /**
+     * Parses the supplied string by trying each of the SimpleDateFormats in turn. Only used for
+     * input that {@link IsoDateParser} cannot decide on its own.
+     */
+    private static Calendar parseDateWithFormats(String string, boolean mustContainYear) {
         ParsePosition parsePosition = new ParsePosition(0);
         Date date;
         if (!mustContainYear) {
@@ -99,6 +303,14 @@ public class DateUtils {
         }
         return calendar;
     }
+    private static final Calendar getUtcDate(long millis, boolean noYear) {
+        final Calendar calendar = Calendar.getInstance(UTC_TIMEZONE, Locale.US);
+        calendar.setTimeInMillis(millis);
+        if (noYear) {
+            calendar.set(Calendar.YEAR, 0);
+        }
+        return calendar;
+    }
     private static final Calendar getUtcDate(int year, int month, int dayOfMonth) {
         final Calendar calendar = Calendar.getInstance(UTC_TIMEZONE, Locale.US);
         calendar.clear();
@@ -139,28 +351,24 @@ public class DateUtils {
         if (string == null) {
             return null;
         }
-        string = string.trim();
-        if (string.length() == 0) {
-            return string;
+        // same bounds as String.trim(), without copying the string
+        int start = 0;
+        int end = string.length();
+        while (start < end && string.charAt(start) <= ' ') {
+            start++;
         }
-        final Calendar cal = parseDate(string, false);
-        // we weren't able to parse the string successfully so just return it unchanged
-        if (cal == null) {
-            return string;
+        while (start < end && string.charAt(end - 1) <= ' ') {
+            end--;
         }
-        final boolean isYearSet = isYearSet(cal);
-        final java.text.DateFormat outFormat;
-        if (!isYearSet) {
-            outFormat = getLocalizedDateFormatWithoutYear(context);
-        } else {
-            outFormat =
-                    longForm ? DateFormat.getLongDateFormat(context) :
-                            DateFormat.getDateFormat(context);
+        if (start == end) {
+            return "";
         }
-        synchronized (outFormat) {
-            outFormat.setTimeZone(UTC_TIMEZONE);
-            return outFormat.format(cal.getTime());
+        final long millis = parseDateToMillis(string, start, end, false);
+        // we weren't able to parse the string successfully so just return it unchanged
+        if (millis == PARSE_FAILED) {
+            return string.substring(start, end);
         }
+        return DateDisplayFormats.get().format(context, millis, longForm);
     }
     public static boolean isMonthBeforeDay(Context context) {
         char[] dateFormatOrder = DateFormat.getDateFormatOrder(context);
@@ -206,6 +414,7 @@ public class DateUtils {
      * @return If date does not contain a year (year < 1900), returns the next earliest anniversary
      * that is after the current point in time (in the local time zone). Otherwise, returns the
      * adjusted Date in the local time zone.
+     * @see AnniversaryIndex for the next anniversaries of many dates at once
      */
     public static Date getNextAnnualDate(Calendar target) {
         final Calendar today = Calendar.getInstance();
@@ -261,4 +470,130 @@ public class DateUtils {
         int currentDay = Time.getJulianDay(date2, time.gmtoff);
         return Math.abs(currentDay - startDay);
     }
-}
\ No newline at end of file
+    /**
+     * Bulk version of {@link #getDayDifference(Time, long, long)}: writes the absolute
+     * difference in days between dates1[i] and dates2[i], as calendar days in the given time
+     * zone, to outDays[i]. Large inputs are split across a shared pool of background threads.
+     *
+     * @param dates1 Times in milliseconds
+     * @param dates2 Times in milliseconds, at least as many as dates1
+     * @param outDays Receives the differences, at least as long as dates1
+     */
+    public static void getDayDifferences(long[] dates1, long[] dates2, TimeZone timeZone,
+                                         int[] outDays) {
+        getDayDifferences(dates1, dates2, timeZone, outDays, ParallelRanges.defaultExecutor());
+    }
+
+    /**
+     * Same as {@link #getDayDifferences(long[], long[], TimeZone, int[])}, splitting large
+     * inputs across the given executor instead of the shared pool.
+     *
+     * @param executor The executor to use, or null to compute on the calling thread only
+     */
+    public static void getDayDifferences(final long[] dates1, final long[] dates2,
+                                         final TimeZone timeZone, final int[] outDays,
+                                         Executor executor) {
+        if (dates2.length < dates1.length || outDays.length < dates1.length) {
+            throw new IllegalArgumentException("Arrays are shorter than the first one");
+        }
+        ParallelRanges.run(dates1.length, ARITHMETIC_PARALLEL_THRESHOLD, executor,
+                new ParallelRanges.Range() {
+                    @Override
+                    public void run(int from, int to) {
+                        // one zone per range, as not every TimeZone can be shared by threads
+                        final TimeZone zone = (TimeZone) timeZone.clone();
+                        for (int i = from; i < to; i++) {
+                            outDays[i] = (int) Math.abs(toLocalEpochDay(dates2[i], zone)
+                                    - toLocalEpochDay(dates1[i], zone));
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Writes the age in whole years on the given date of each birth date, as calendar dates in
+     * the given time zone, to the corresponding index of the output array. Someone born on
+     * February 29th turns a year older on March 1st in non leap years. Births after the date
+     * give negative ages. Large inputs are split across a shared pool of background threads.
+     *
+     * @param birthDates Times in milliseconds
+     * @param date The time in milliseconds to compute the ages at
+     * @param outYears Receives the ages, at least as long as the input
+     */
+    public static void getAges(long[] birthDates, long date, TimeZone timeZone, int[] outYears) {
+        getAges(birthDates, date, timeZone, outYears, ParallelRanges.defaultExecutor());
+    }
+
+    /**
+     * Same as {@link #getAges(long[], long, TimeZone, int[])}, splitting large inputs across the
+     * given executor instead of the shared pool.
+     *
+     * @param executor The executor to use, or null to compute on the calling thread only
+     */
+    public static void getAges(final long[] birthDates, long date, final TimeZone timeZone,
+                               final int[] outYears, Executor executor) {
+        if (outYears.length < birthDates.length) {
+            throw new IllegalArgumentException("Output array is shorter than the input");
+        }
+        final int packedDate = PackedDates.fromEpochDay(toLocalEpochDay(date, timeZone));
+        final int year = PackedDates.year(packedDate);
+        final int dayOfYear = packedDate & PACKED_DAY_OF_YEAR_MASK;
+        ParallelRanges.run(birthDates.length, ARITHMETIC_PARALLEL_THRESHOLD, executor,
+                new ParallelRanges.Range() {
+                    @Override
+                    public void run(int from, int to) {
+                        final TimeZone zone = (TimeZone) timeZone.clone();
+                        for (int i = from; i < to; i++) {
+                            final int birth = PackedDates.fromEpochDay(
+                                    toLocalEpochDay(birthDates[i], zone));
+                            outYears[i] = year - PackedDates.year(birth)
+                                    - (dayOfYear < (birth & PACKED_DAY_OF_YEAR_MASK) ? 1 : 0);
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Writes each date limited to [minDate, maxDate] to the corresponding index of the output
+     * array, which may be the input array itself. Large inputs are split across a shared pool
+     * of background threads.
+     *
+     * @param outDates Receives the clamped dates, at least as long as the input
+     */
+    public static void clampDates(long[] dates, long minDate, long maxDate, long[] outDates) {
+        clampDates(dates, minDate, maxDate, outDates, ParallelRanges.defaultExecutor());
+    }
+
+    /**
+     * Same as {@link #clampDates(long[], long, long, long[])}, splitting large inputs across the
+     * given executor instead of the shared pool.
+     *
+     * @param executor The executor to use, or null to compute on the calling thread only
+     */
+    public static void clampDates(final long[] dates, final long minDate, final long maxDate,
+                                  final long[] outDates, Executor executor) {
+        if (maxDate < minDate) {
+            throw new IllegalArgumentException("Max date is before Min date");
+        }
+        if (outDates.length < dates.length) {
+            throw new IllegalArgumentException("Output array is shorter than the input");
+        }
+        ParallelRanges.run(dates.length, ARITHMETIC_PARALLEL_THRESHOLD, executor,
+                new ParallelRanges.Range() {
+                    @Override
+                    public void run(int from, int to) {
+                        for (int i = from; i < to; i++) {
+                            outDates[i] = Math.min(maxDate, Math.max(minDate, dates[i]));
+                        }
+                    }
+                });
+    }
+
+    /**
+     * @return the number of days from 1970-01-01 to the calendar date of the given time in the
+     * given time zone, the same day as {@link Time#getJulianDay(long, long)} counts
+     */
+    private static long toLocalEpochDay(long millis, TimeZone timeZone) {
+        return PackedDates.floorDiv(millis + timeZone.getOffset(millis), MILLIS_PER_DAY);
+    }
+}
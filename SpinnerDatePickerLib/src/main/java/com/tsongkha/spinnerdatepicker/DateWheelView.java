@@ -0,0 +1,873 @@
+package com.tsongkha.spinnerdatepicker;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.os.Bundle;
+import android.util.TypedValue;
+import android.view.KeyEvent;
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+import android.view.View;
+import android.view.ViewConfiguration;
+import android.view.ViewParent;
+import android.widget.NumberPicker;
+import android.widget.NumberPicker.OnScrollListener;
+import android.widget.Scroller;
+
+import androidx.core.view.ViewCompat;
+import androidx.core.view.accessibility.AccessibilityNodeInfoCompat;
+import androidx.customview.widget.ExploreByTouchHelper;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Draws the day, month and year spinners of a {@link DatePicker} as three columns of a single
+ * view.
+ *
+ * Compared to three {@link NumberPicker}s there is one view to measure and lay out, one paint
+ * and one label cache for all the columns and no text input. Each column scrolls and flings on
+ * its own like a NumberPicker and reports the same value changes and scroll states. For
+ * accessibility services each column is a virtual view that can be scrolled forward and back.
+ */
+final class DateWheelView extends View {
+
+    static final int DAY = 0;
+
+    static final int MONTH = 1;
+
+    static final int YEAR = 2;
+
+    static final int COLUMN_COUNT = 3;
+
+    static final int NO_COLUMN = -1;
+
+    /**
+     * Receives the same callbacks as the listeners of a NumberPicker, for each column
+     */
+    interface OnColumnChangeListener {
+        void onValueChange(DateWheelView view, int column, int oldVal, int newVal);
+
+        /**
+         * @param scrollState One of the {@link OnScrollListener} scroll states
+         */
+        void onScrollStateChange(DateWheelView view, int column, int scrollState);
+    }
+
+    // number of rows of a column, the selected value is in the middle one
+    private static final int ROW_COUNT = 3;
+
+    private static final int DEFAULT_HEIGHT_DIP = 180;
+
+    private static final int COLUMN_MARGIN_DIP = 1;
+
+    private static final int DIVIDER_HEIGHT_DIP = 2;
+
+    private static final int DEFAULT_TEXT_SIZE_SP = 18;
+
+    private static final int DEFAULT_LONG_PRESS_UPDATE_INTERVAL = 300;
+
+    private static final int SNAP_DURATION_MILLIS = 300;
+
+    private static final int STEP_DURATION_MILLIS = 300;
+
+    // alpha of the rows next to the selected one
+    private static final float EDGE_ROW_ALPHA = 0.3f;
+
+    private static final int FOCUS_ALPHA = 0x40;
+
+    // 64 number labels are kept
+    private static final int LABEL_CACHE_BITS = 6;
+
+    private static final int NO_VALUE = Integer.MIN_VALUE;
+
+    // theme attributes read like the README's NumberPicker style, sorted for obtainStyledAttributes
+    private static final int[] THEME_ATTRS = {android.R.attr.textColorPrimary,
+            android.R.attr.textSize, android.R.attr.colorControlNormal};
+
+    private static final int THEME_TEXT_COLOR = 0;
+
+    private static final int THEME_TEXT_SIZE = 1;
+
+    private static final int THEME_DIVIDER_COLOR = 2;
+
+    private static final int SCROLL_MODE_NONE = 0;
+
+    private static final int SCROLL_MODE_FLING = 1;
+
+    private static final int SCROLL_MODE_STEP = 2;
+
+    private static final int SCROLL_MODE_SNAP = 3;
+
+    // per column state, indexed by DAY, MONTH and YEAR
+
+    private final int[] mMinValue = new int[COLUMN_COUNT];
+
+    private final int[] mMaxValue = new int[COLUMN_COUNT];
+
+    private final int[] mValue = new int[COLUMN_COUNT];
+
+    private final boolean[] mWrap = new boolean[COLUMN_COUNT];
+
+    private final String[][] mDisplayedValues = new String[COLUMN_COUNT][];
+
+    private final NumberPicker.Formatter[] mFormatters = new NumberPicker.Formatter[COLUMN_COUNT];
+
+    private final boolean[] mVisible = {true, true, true};
+
+    private final int[] mColumnWidth = new int[COLUMN_COUNT];
+
+    private final int[] mColumnLeft = new int[COLUMN_COUNT];
+
+    private final long[] mLongPressUpdateInterval = {DEFAULT_LONG_PRESS_UPDATE_INTERVAL,
+            DEFAULT_LONG_PRESS_UPDATE_INTERVAL, DEFAULT_LONG_PRESS_UPDATE_INTERVAL};
+
+    // distance the selected row is drawn below its resting place, at most half a row
+    private final int[] mScrollOffset = new int[COLUMN_COUNT];
+
+    private final Scroller[] mScrollers = new Scroller[COLUMN_COUNT];
+
+    private final int[] mScrollMode = new int[COLUMN_COUNT];
+
+    private final int[] mLastScrollerY = new int[COLUMN_COUNT];
+
+    private final int[] mScrollState = new int[COLUMN_COUNT];
+
+    // columns from left to right
+    private final int[] mOrder = {MONTH, DAY, YEAR};
+
+    private final Paint mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    private final Paint mDividerPaint = new Paint();
+
+    private final int mTextAlpha;
+
+    private final float mTextBaselineOffset;
+
+    private final int mDefaultHeight;
+
+    private final int mColumnMargin;
+
+    private final int mDividerHeight;
+
+    private int mRowHeight;
+
+    // labels of columns with neither displayed values nor a formatter, see getNumberLabel
+    private final int[] mLabelKeys = new int[1 << LABEL_CACHE_BITS];
+
+    private final String[] mLabels = new String[1 << LABEL_CACHE_BITS];
+
+    private Locale mLabelLocale;
+
+    private final int mTouchSlop;
+
+    private final int mMinimumFlingVelocity;
+
+    private final int mMaximumFlingVelocity;
+
+    private VelocityTracker mVelocityTracker;
+
+    private int mTouchColumn = NO_COLUMN;
+
+    private float mDownY;
+
+    private float mLastY;
+
+    private boolean mDragging;
+
+    // whether the touch stopped a scroll and so is not a tap
+    private boolean mIgnoreTap;
+
+    private int mLongPressColumn = NO_COLUMN;
+
+    private int mLongPressDelta;
+
+    private boolean mLongPressed;
+
+    private final Runnable mLongPressRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mLongPressed = true;
+            changeValueByOne(mLongPressColumn, mLongPressDelta > 0);
+            postDelayed(this, mLongPressUpdateInterval[mLongPressColumn]);
+        }
+    };
+
+    private final AccessibilityHelper mAccessibilityHelper;
+
+    private OnColumnChangeListener mOnColumnChangeListener;
+
+    /**
+     * @param context The context with the spinner theme
+     */
+    DateWheelView(Context context) {
+        super(context);
+        final float density = getResources().getDisplayMetrics().density;
+        mDefaultHeight = (int) (DEFAULT_HEIGHT_DIP * density + 0.5f);
+        mColumnMargin = Math.max(1, (int) (COLUMN_MARGIN_DIP * density + 0.5f));
+        mDividerHeight = Math.max(1, (int) (DIVIDER_HEIGHT_DIP * density + 0.5f));
+        mColumnWidth[DAY] = (int) (PickerLayouts.DAY_MONTH_WIDTH_DIP * density + 0.5f);
+        mColumnWidth[MONTH] = mColumnWidth[DAY];
+        mColumnWidth[YEAR] = (int) (PickerLayouts.YEAR_WIDTH_DIP * density + 0.5f);
+
+        final TypedArray a = context.obtainStyledAttributes(THEME_ATTRS);
+        final int textColor = a.getColor(THEME_TEXT_COLOR, Color.BLACK);
+        final float textSize = a.getDimension(THEME_TEXT_SIZE, TypedValue.applyDimension(
+                TypedValue.COMPLEX_UNIT_SP, DEFAULT_TEXT_SIZE_SP,
+                getResources().getDisplayMetrics()));
+        mDividerPaint.setColor(a.getColor(THEME_DIVIDER_COLOR, textColor));
+        a.recycle();
+
+        mTextPaint.setTextAlign(Paint.Align.CENTER);
+        mTextPaint.setTextSize(textSize);
+        mTextPaint.setColor(textColor);
+        mTextAlpha = mTextPaint.getAlpha();
+        final Paint.FontMetrics fontMetrics = mTextPaint.getFontMetrics();
+        mTextBaselineOffset = -(fontMetrics.ascent + fontMetrics.descent) / 2;
+
+        final ViewConfiguration configuration = ViewConfiguration.get(context);
+        mTouchSlop = configuration.getScaledTouchSlop();
+        mMinimumFlingVelocity = configuration.getScaledMinimumFlingVelocity();
+        mMaximumFlingVelocity = configuration.getScaledMaximumFlingVelocity();
+        for (int column = 0; column < COLUMN_COUNT; column++) {
+            mScrollers[column] = new Scroller(context, null, true);
+        }
+
+        setFocusable(true);
+        setFocusableInTouchMode(true);
+        mAccessibilityHelper = new AccessibilityHelper(this);
+        ViewCompat.setAccessibilityDelegate(this, mAccessibilityHelper);
+    }
+
+    void setOnColumnChangeListener(OnColumnChangeListener listener) {
+        mOnColumnChangeListener = listener;
+    }
+
+    /**
+     * Same as {@link NumberPicker#setFormatter}, used when a column has no displayed values
+     */
+    void setFormatter(int column, NumberPicker.Formatter formatter) {
+        mFormatters[column] = formatter;
+        invalidate();
+    }
+
+    /**
+     * Same as {@link NumberPicker#setOnLongPressUpdateInterval}
+     */
+    void setOnLongPressUpdateInterval(int column, long intervalMillis) {
+        mLongPressUpdateInterval[column] = intervalMillis;
+    }
+
+    /**
+     * Sets the range, wrapping and labels of a column, doing nothing if they are unchanged. The
+     * value is kept within the range.
+     *
+     * @param displayedValues The labels for the range, or null to show the values. Labels are
+     *                        compared by reference.
+     */
+    void setRange(int column, int minValue, int maxValue, boolean wrap,
+                  String[] displayedValues) {
+        if (mMinValue[column] == minValue && mMaxValue[column] == maxValue
+                && mWrap[column] == wrap && mDisplayedValues[column] == displayedValues) {
+            return;
+        }
+        mMinValue[column] = minValue;
+        mMaxValue[column] = maxValue;
+        mWrap[column] = wrap;
+        mDisplayedValues[column] = displayedValues;
+        mValue[column] = Math.max(minValue, Math.min(maxValue, mValue[column]));
+        invalidateColumn(column);
+    }
+
+    int getValue(int column) {
+        return mValue[column];
+    }
+
+    /**
+     * Same as {@link NumberPicker#setValue}, which does not notify the listener
+     */
+    void setValue(int column, int value) {
+        value = Math.max(mMinValue[column], Math.min(mMaxValue[column], value));
+        if (mValue[column] != value) {
+            mValue[column] = value;
+            invalidateColumn(column);
+        }
+    }
+
+    void setColumnVisible(int column, boolean visible) {
+        if (mVisible[column] != visible) {
+            mVisible[column] = visible;
+            mAccessibilityHelper.invalidateRoot();
+            requestLayout();
+            invalidate();
+        }
+    }
+
+    /**
+     * @param order The columns from left to right as returned by
+     *              {@link ICU#getDateFormatOrder(String)}
+     */
+    void setColumnOrder(char[] order) {
+        if (order.length != COLUMN_COUNT) {
+            throw new IllegalArgumentException(Arrays.toString(order));
+        }
+        for (int i = 0; i < COLUMN_COUNT; i++) {
+            switch (order[i]) {
+                case 'd':
+                    mOrder[i] = DAY;
+                    break;
+                case 'M':
+                    mOrder[i] = MONTH;
+                    break;
+                case 'y':
+                    mOrder[i] = YEAR;
+                    break;
+                default:
+                    throw new IllegalArgumentException(Arrays.toString(order));
+            }
+        }
+        mAccessibilityHelper.invalidateRoot();
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * Steps a column by one value as a tap on a NumberPicker's arrows would, notifying the
+     * listener.
+     *
+     * @return whether the value changed
+     */
+    boolean changeValueByOne(int column, boolean increment) {
+        final int delta = increment ? 1 : -1;
+        if (!canStep(column, delta)) {
+            return false;
+        }
+        step(column, delta);
+        return true;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        final int width = getPaddingLeft() + getPaddingRight() + getContentWidth();
+        final int height = getPaddingTop() + getPaddingBottom() + mDefaultHeight;
+        setMeasuredDimension(resolveSize(width, widthMeasureSpec),
+                             resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        final int availableWidth = right - left - getPaddingLeft() - getPaddingRight();
+        int x = getPaddingLeft() + Math.max(0, (availableWidth - getContentWidth()) / 2);
+        final boolean rtl =
+                ViewCompat.getLayoutDirection(this) == ViewCompat.LAYOUT_DIRECTION_RTL;
+        for (int i = 0; i < COLUMN_COUNT; i++) {
+            // like a horizontal LinearLayout, the order is mirrored right to left
+            final int column = mOrder[rtl ? COLUMN_COUNT - 1 - i : i];
+            if (mVisible[column]) {
+                mColumnLeft[column] = x + mColumnMargin;
+                x += mColumnWidth[column] + 2 * mColumnMargin;
+            }
+        }
+        mRowHeight = Math.max(1, (bottom - top - getPaddingTop() - getPaddingBottom())
+                / ROW_COUNT);
+    }
+
+    private int getContentWidth() {
+        int width = 0;
+        for (int column = 0; column < COLUMN_COUNT; column++) {
+            if (mVisible[column]) {
+                width += mColumnWidth[column] + 2 * mColumnMargin;
+            }
+        }
+        return width;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        final int centerY = getCenterY();
+        final int top = getPaddingTop();
+        final int bottom = getHeight() - getPaddingBottom();
+        final int focusedColumn = isFocused()
+                ? mAccessibilityHelper.getKeyboardFocusedVirtualViewId()
+                : ExploreByTouchHelper.INVALID_ID;
+        for (int column = 0; column < COLUMN_COUNT; column++) {
+            if (!mVisible[column]) {
+                continue;
+            }
+            final int left = mColumnLeft[column];
+            final int right = left + mColumnWidth[column];
+            final float x = (left + right) / 2f;
+
+            canvas.save();
+            canvas.clipRect(left, top, right, bottom);
+            // one more row on each side comes into view while scrolling
+            for (int row = -ROW_COUNT / 2 - 1; row <= ROW_COUNT / 2 + 1; row++) {
+                final int value = getValueAt(column, row);
+                if (value == NO_VALUE) {
+                    continue;
+                }
+                final float y = centerY + row * mRowHeight + mScrollOffset[column];
+                final float distance = Math.min(1f, Math.abs(y - centerY) / mRowHeight);
+                mTextPaint.setAlpha((int) (mTextAlpha * (1f - (1f - EDGE_ROW_ALPHA) * distance)));
+                canvas.drawText(getLabel(column, value), x, y + mTextBaselineOffset, mTextPaint);
+            }
+            canvas.restore();
+
+            final int dividerTop = centerY - mRowHeight / 2;
+            final int dividerBottom = centerY + mRowHeight / 2;
+            if (column == focusedColumn) {
+                final int alpha = mDividerPaint.getAlpha();
+                mDividerPaint.setAlpha(FOCUS_ALPHA * alpha / 0xFF);
+                canvas.drawRect(left, dividerTop, right, dividerBottom, mDividerPaint);
+                mDividerPaint.setAlpha(alpha);
+            }
+            canvas.drawRect(left, dividerTop - mDividerHeight, right, dividerTop, mDividerPaint);
+            canvas.drawRect(left, dividerBottom, right, dividerBottom + mDividerHeight,
+                            mDividerPaint);
+        }
+    }
+
+    private int getCenterY() {
+        return getPaddingTop() + (getHeight() - getPaddingTop() - getPaddingBottom()) / 2;
+    }
+
+    /**
+     * @return the value shown the given number of rows below the selected one, or NO_VALUE
+     */
+    private int getValueAt(int column, int row) {
+        final int min = mMinValue[column];
+        final int max = mMaxValue[column];
+        final int value = mValue[column] + row;
+        if (value >= min && value <= max) {
+            return value;
+        } else if (isWrapping(column)) {
+            return min + PackedDates.floorMod(value - min, max - min + 1);
+        }
+        return NO_VALUE;
+    }
+
+    private String getLabel(int column, int value) {
+        final String[] displayedValues = mDisplayedValues[column];
+        if (displayedValues != null) {
+            return displayedValues[value - mMinValue[column]];
+        }
+        final NumberPicker.Formatter formatter = mFormatters[column];
+        if (formatter != null) {
+            return formatter.format(value);
+        }
+        return getNumberLabel(value);
+    }
+
+    private String getNumberLabel(int value) {
+        final Locale locale = Locale.getDefault();
+        if (locale != mLabelLocale) {
+            mLabelLocale = locale;
+            Arrays.fill(mLabels, null);
+        }
+        final int index = (value * 0x9E3779B9) >>> (32 - LABEL_CACHE_BITS);
+        String label = mLabels[index];
+        if (label == null || mLabelKeys[index] != value) {
+            // the same digits as a NumberPicker without a formatter
+            label = String.format(locale, "%d", value);
+            mLabelKeys[index] = value;
+            mLabels[index] = label;
+        }
+        return label;
+    }
+
+    /**
+     * Same as a NumberPicker, which only wraps when there are more values than rows
+     */
+    private boolean isWrapping(int column) {
+        return mWrap[column] && mMaxValue[column] - mMinValue[column] >= ROW_COUNT;
+    }
+
+    private boolean canStep(int column, int delta) {
+        final int value = mValue[column] + delta;
+        return (value >= mMinValue[column] && value <= mMaxValue[column]) || isWrapping(column);
+    }
+
+    private void step(int column, int delta) {
+        final int oldVal = mValue[column];
+        int newVal = oldVal + delta;
+        if (newVal > mMaxValue[column]) {
+            newVal = mMinValue[column];
+        } else if (newVal < mMinValue[column]) {
+            newVal = mMaxValue[column];
+        }
+        mValue[column] = newVal;
+        invalidateColumn(column);
+        if (mOnColumnChangeListener != null) {
+            mOnColumnChangeListener.onValueChange(this, column, oldVal, newVal);
+        }
+    }
+
+    private void invalidateColumn(int column) {
+        mAccessibilityHelper.invalidateVirtualView(column);
+        invalidate();
+    }
+
+    /**
+     * Moves the rows of a column down by dy pixels, changing the value each time the next row is
+     * closer to the middle.
+     *
+     * @return whether the column could not move all the way as it reached its min or max value
+     */
+    private boolean scrollColumnBy(int column, int dy) {
+        final int halfRow = mRowHeight / 2;
+        int offset = mScrollOffset[column] + dy;
+        while (offset > halfRow && canStep(column, -1)) {
+            offset -= mRowHeight;
+            step(column, -1);
+        }
+        while (offset < -halfRow && canStep(column, 1)) {
+            offset += mRowHeight;
+            step(column, 1);
+        }
+        boolean clamped = false;
+        if ((offset > 0 && !canStep(column, -1)) || (offset < 0 && !canStep(column, 1))) {
+            offset = 0;
+            clamped = true;
+        }
+        mScrollOffset[column] = offset;
+        invalidate();
+        return clamped;
+    }
+
+    private void setScrollState(int column, int scrollState) {
+        if (mScrollState[column] == scrollState) {
+            return;
+        }
+        mScrollState[column] = scrollState;
+        if (mOnColumnChangeListener != null) {
+            mOnColumnChangeListener.onScrollStateChange(this, column, scrollState);
+        }
+    }
+
+    private void startScroll(int column, int scrollMode, int dy, int duration) {
+        mLastScrollerY[column] = 0;
+        mScrollers[column].startScroll(0, 0, 0, dy, duration);
+        mScrollMode[column] = scrollMode;
+        postInvalidateOnAnimation();
+    }
+
+    private void fling(int column, int velocityY) {
+        mLastScrollerY[column] = 0;
+        mScrollers[column].fling(0, 0, 0, velocityY, 0, 0, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        mScrollMode[column] = SCROLL_MODE_FLING;
+        setScrollState(column, OnScrollListener.SCROLL_STATE_FLING);
+        postInvalidateOnAnimation();
+    }
+
+    /**
+     * Scrolls a column by one row with the same animation as a tap on a NumberPicker's arrows
+     */
+    private void smoothStep(int column, int delta) {
+        if (canStep(column, delta)) {
+            setScrollState(column, OnScrollListener.SCROLL_STATE_FLING);
+            startScroll(column, SCROLL_MODE_STEP, -delta * mRowHeight, STEP_DURATION_MILLIS);
+        }
+    }
+
+    /**
+     * Moves the column back to rest with its selected row in the middle
+     */
+    private void settle(int column) {
+        if (mScrollOffset[column] != 0) {
+            startScroll(column, SCROLL_MODE_SNAP, -mScrollOffset[column], SNAP_DURATION_MILLIS);
+        } else {
+            mScrollMode[column] = SCROLL_MODE_NONE;
+            setScrollState(column, OnScrollListener.SCROLL_STATE_IDLE);
+        }
+    }
+
+    @Override
+    public void computeScroll() {
+        boolean animating = false;
+        for (int column = 0; column < COLUMN_COUNT; column++) {
+            if (mScrollMode[column] == SCROLL_MODE_NONE) {
+                continue;
+            }
+            final Scroller scroller = mScrollers[column];
+            if (scroller.computeScrollOffset()) {
+                final int y = scroller.getCurrY();
+                final boolean clamped = scrollColumnBy(column, y - mLastScrollerY[column]);
+                mLastScrollerY[column] = y;
+                if (!clamped || mScrollMode[column] == SCROLL_MODE_SNAP) {
+                    animating = true;
+                    continue;
+                }
+                scroller.forceFinished(true);
+            }
+            if (mScrollMode[column] == SCROLL_MODE_SNAP) {
+                mScrollOffset[column] = 0;
+                mScrollMode[column] = SCROLL_MODE_NONE;
+                setScrollState(column, OnScrollListener.SCROLL_STATE_IDLE);
+            } else {
+                settle(column);
+                animating |= mScrollMode[column] != SCROLL_MODE_NONE;
+            }
+        }
+        if (animating) {
+            postInvalidateOnAnimation();
+        }
+    }
+
+    /**
+     * @return the column under x, or NO_COLUMN
+     */
+    int getColumnAt(float x) {
+        for (int column = 0; column < COLUMN_COUNT; column++) {
+            if (mVisible[column] && x >= mColumnLeft[column] - mColumnMargin
+                    && x < mColumnLeft[column] + mColumnWidth[column] + mColumnMargin) {
+                return column;
+            }
+        }
+        return NO_COLUMN;
+    }
+
+    /**
+     * @return -1 above the selected row, 1 below it and 0 on it
+     */
+    private int getRowAt(float y) {
+        final int centerY = getCenterY();
+        if (y < centerY - mRowHeight / 2) {
+            return -1;
+        } else if (y > centerY + mRowHeight / 2) {
+            return 1;
+        }
+        return 0;
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (!isEnabled()) {
+            return false;
+        }
+        final int action = event.getActionMasked();
+        if (action == MotionEvent.ACTION_DOWN) {
+            mTouchColumn = getColumnAt(event.getX());
+            if (mTouchColumn == NO_COLUMN) {
+                return false;
+            }
+            mDownY = event.getY();
+            mLastY = mDownY;
+            mDragging = false;
+            mLongPressed = false;
+            // a touch that stops a scroll only stops it
+            mIgnoreTap = mScrollMode[mTouchColumn] != SCROLL_MODE_NONE;
+            mScrollers[mTouchColumn].forceFinished(true);
+            mScrollMode[mTouchColumn] = SCROLL_MODE_NONE;
+            final int row = getRowAt(mDownY);
+            if (row != 0 && !mIgnoreTap) {
+                mLongPressColumn = mTouchColumn;
+                mLongPressDelta = row;
+                postDelayed(mLongPressRunnable, ViewConfiguration.getLongPressTimeout());
+            }
+        }
+        if (mTouchColumn == NO_COLUMN) {
+            return false;
+        }
+        if (mVelocityTracker == null) {
+            mVelocityTracker = VelocityTracker.obtain();
+        }
+        mVelocityTracker.addMovement(event);
+
+        switch (action) {
+            case MotionEvent.ACTION_MOVE: {
+                final float y = event.getY();
+                if (!mDragging && Math.abs(y - mDownY) > mTouchSlop) {
+                    mDragging = true;
+                    mLastY = y;
+                    cancelLongPress();
+                    final ViewParent parent = getParent();
+                    if (parent != null) {
+                        parent.requestDisallowInterceptTouchEvent(true);
+                    }
+                    setScrollState(mTouchColumn, OnScrollListener.SCROLL_STATE_TOUCH_SCROLL);
+                }
+                if (mDragging) {
+                    final int dy = (int) (y - mLastY);
+                    mLastY += dy;
+                    scrollColumnBy(mTouchColumn, dy);
+                }
+                break;
+            }
+            case MotionEvent.ACTION_UP: {
+                cancelLongPress();
+                if (mDragging) {
+                    mVelocityTracker.computeCurrentVelocity(1000, mMaximumFlingVelocity);
+                    final int velocityY = (int) mVelocityTracker.getYVelocity();
+                    if (Math.abs(velocityY) > mMinimumFlingVelocity) {
+                        fling(mTouchColumn, velocityY);
+                    } else {
+                        settle(mTouchColumn);
+                    }
+                } else if (!mLongPressed && !mIgnoreTap) {
+                    final int row = getRowAt(event.getY());
+                    if (row != 0) {
+                        smoothStep(mTouchColumn, row);
+                    } else {
+                        settle(mTouchColumn);
+                        performClick();
+                    }
+                } else {
+                    settle(mTouchColumn);
+                }
+                endTouch();
+                break;
+            }
+            case MotionEvent.ACTION_CANCEL: {
+                cancelLongPress();
+                settle(mTouchColumn);
+                endTouch();
+                break;
+            }
+        }
+        return true;
+    }
+
+    private void endTouch() {
+        mTouchColumn = NO_COLUMN;
+        mDragging = false;
+        if (mVelocityTracker != null) {
+            mVelocityTracker.recycle();
+            mVelocityTracker = null;
+        }
+    }
+
+    @Override
+    public void cancelLongPress() {
+        super.cancelLongPress();
+        removeCallbacks(mLongPressRunnable);
+        mLongPressColumn = NO_COLUMN;
+    }
+
+    @Override
+    public boolean performClick() {
+        return super.performClick();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        cancelLongPress();
+        for (int column = 0; column < COLUMN_COUNT; column++) {
+            if (mScrollMode[column] != SCROLL_MODE_NONE) {
+                mScrollers[column].forceFinished(true);
+                mScrollMode[column] = SCROLL_MODE_NONE;
+                mScrollOffset[column] = 0;
+                setScrollState(column, OnScrollListener.SCROLL_STATE_IDLE);
+            }
+        }
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        super.setEnabled(enabled);
+        if (!enabled) {
+            cancelLongPress();
+        }
+        mAccessibilityHelper.invalidateRoot();
+    }
+
+    @Override
+    protected boolean dispatchHoverEvent(MotionEvent event) {
+        return mAccessibilityHelper.dispatchHoverEvent(event) || super.dispatchHoverEvent(event);
+    }
+
+    @Override
+    public boolean dispatchKeyEvent(KeyEvent event) {
+        // up and down change the focused column like a NumberPicker, left and right move
+        // between the columns
+        final int keyCode = event.getKeyCode();
+        final int column = mAccessibilityHelper.getKeyboardFocusedVirtualViewId();
+        if (isEnabled() && column != ExploreByTouchHelper.INVALID_ID
+                && (keyCode == KeyEvent.KEYCODE_DPAD_UP || keyCode == KeyEvent.KEYCODE_DPAD_DOWN)) {
+            final int delta = keyCode == KeyEvent.KEYCODE_DPAD_DOWN ? 1 : -1;
+            if (!canStep(column, delta)) {
+                return false;
+            }
+            if (event.getAction() == KeyEvent.ACTION_DOWN) {
+                smoothStep(column, delta);
+            }
+            return true;
+        }
+        return mAccessibilityHelper.dispatchKeyEvent(event) || super.dispatchKeyEvent(event);
+    }
+
+    @Override
+    protected void onFocusChanged(boolean gainFocus, int direction, Rect previouslyFocusedRect) {
+        super.onFocusChanged(gainFocus, direction, previouslyFocusedRect);
+        mAccessibilityHelper.onFocusChanged(gainFocus, direction, previouslyFocusedRect);
+        invalidate();
+    }
+
+    /**
+     * Exposes each column as a virtual view
+     */
+    private final class AccessibilityHelper extends ExploreByTouchHelper {
+
+        private final Rect mTempRect = new Rect();
+
+        AccessibilityHelper(View host) {
+            super(host);
+        }
+
+        @Override
+        protected int getVirtualViewAt(float x, float y) {
+            final int column = getColumnAt(x);
+            return column != NO_COLUMN ? column : INVALID_ID;
+        }
+
+        @Override
+        protected void getVisibleVirtualViews(List<Integer> virtualViewIds) {
+            for (int i = 0; i < COLUMN_COUNT; i++) {
+                if (mVisible[mOrder[i]]) {
+                    virtualViewIds.add(mOrder[i]);
+                }
+            }
+        }
+
+        @Override
+        protected void onPopulateNodeForVirtualView(int column,
+                                                    AccessibilityNodeInfoCompat node) {
+            node.setClassName(NumberPicker.class.getName());
+            node.setContentDescription(getLabel(column, mValue[column]));
+            mTempRect.set(mColumnLeft[column], getPaddingTop(),
+                          mColumnLeft[column] + mColumnWidth[column],
+                          getHeight() - getPaddingBottom());
+            node.setBoundsInParent(mTempRect);
+            node.setEnabled(isEnabled());
+            node.setFocusable(true);
+            node.setScrollable(true);
+            if (isEnabled() && canStep(column, 1)) {
+                node.addAction(AccessibilityNodeInfoCompat.ACTION_SCROLL_FORWARD);
+            }
+            if (isEnabled() && canStep(column, -1)) {
+                node.addAction(AccessibilityNodeInfoCompat.ACTION_SCROLL_BACKWARD);
+            }
+        }
+
+        @Override
+        protected boolean onPerformActionForVirtualView(int column, int action,
+                                                        Bundle arguments) {
+            if (!isEnabled()) {
+                return false;
+            }
+            switch (action) {
+                case AccessibilityNodeInfoCompat.ACTION_SCROLL_FORWARD:
+                    return changeValueByOne(column, true);
+                case AccessibilityNodeInfoCompat.ACTION_SCROLL_BACKWARD:
+                    return changeValueByOne(column, false);
+                default:
+                    return false;
+            }
+        }
+    }
+}
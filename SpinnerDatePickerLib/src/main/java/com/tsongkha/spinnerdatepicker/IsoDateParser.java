@@ -0,0 +1,389 @@
+package com.tsongkha.spinnerdatepicker;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Single pass scanner for the ISO 8601 variations accepted by
+ * {@link DateUtils#parseDate(String, boolean)}.
+ *
+ * The scanner mirrors how a lenient, UTC {@link java.text.SimpleDateFormat} parses each pattern
+ * of the table, including field widths for patterns without delimiters and roll over of out of
+ * range fields. It takes no locks and only works on primitives. Inputs it cannot decide exactly
+ * (signs, whitespace, non-ASCII digits, very large fields or years before the Gregorian cutover)
+ * are reported as {@link #UNSUPPORTED} so that the caller can fall back to the
+ * SimpleDateFormat table.
+ *
+ * Instances are not thread safe; use {@link #get()} to obtain the one for the current thread.
+ */
+final class IsoDateParser {
+
+    /**
+     * None of the patterns match the text
+     */
+    static final long NO_MATCH = Long.MIN_VALUE;
+
+    /**
+     * The text has to be parsed by the SimpleDateFormat table instead
+     */
+    static final long UNSUPPORTED = Long.MIN_VALUE + 1;
+
+    // Must be kept in the same order as DateUtils.DATE_FORMATS
+    private static final String NO_YEAR_PATTERN = "--MM-dd";
+    private static final String[] PATTERNS = {
+            "yyyy-MM-dd",
+            "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'",
+            "yyyy-MM-dd'T'HH:mm'Z'",
+            "yyyyMMdd",
+            "yyyyMMdd'T'HHmmssSSS'Z'",
+            "yyyyMMdd'T'HHmmss'Z'",
+            "yyyyMMdd'T'HHmm'Z'",
+    };
+
+    private static final int YEAR = 0;
+    private static final int MONTH = 1;
+    private static final int DAY_OF_MONTH = 2;
+    private static final int HOUR_OF_DAY = 3;
+    private static final int MINUTE = 4;
+    private static final int SECOND = 5;
+    private static final int MILLISECOND = 6;
+    private static final int FIELD_COUNT = 7;
+
+    // A compiled pattern is an int per token: either a literal char or a field
+    private static final int FIELD_TOKEN = 1 << 16;
+    private static final int OBEY_COUNT = 1 << 17;
+
+    private static final int[] NO_YEAR_PROGRAM = compile(NO_YEAR_PATTERN);
+    private static final int[][] PROGRAMS = new int[PATTERNS.length][];
+
+    static {
+        for (int i = 0; i < PATTERNS.length; i++) {
+            PROGRAMS[i] = compile(PATTERNS[i]);
+        }
+    }
+
+    /**
+     * Longer text is left to the SimpleDateFormat table
+     */
+    static final int MAX_LENGTH = 64;
+
+    private static final int MAX_FIELD_VALUE = 999999999;
+
+    // Before this year GregorianCalendar switches to the Julian calendar, after the last one
+    // its arithmetic is no longer exact
+    private static final int MIN_YEAR = 1600;
+    private static final int MAX_YEAR = 99999;
+
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+
+    private static final long JULIAN_DAY_OF_EPOCH = 2440588L;
+
+    private static final ThreadLocal<IsoDateParser> PARSERS = new ThreadLocal<IsoDateParser>() {
+        @Override
+        protected IsoDateParser initialValue() {
+            return new IsoDateParser();
+        }
+    };
+
+    private final char[] mText = new char[MAX_LENGTH];
+
+    private int mLength;
+
+    private boolean mNoYear;
+
+    private final int[] mFields = new int[FIELD_COUNT];
+
+    private IsoDateParser() {
+    }
+
+    static IsoDateParser get() {
+        return PARSERS.get();
+    }
+
+    /**
+     * Loads the text to be parsed.
+     *
+     * @return false if the text is too long for the scanner
+     */
+    boolean setText(String text) {
+        return setText(text, 0, text.length());
+    }
+
+    /**
+     * Loads the chars in [start, end) of the text to be parsed.
+     *
+     * @return false if the text is too long for the scanner
+     */
+    boolean setText(CharSequence text, int start, int end) {
+        final int length = end - start;
+        if (length > MAX_LENGTH) {
+            return false;
+        }
+        if (text instanceof String) {
+            ((String) text).getChars(start, end, mText, 0);
+        } else {
+            for (int i = 0; i < length; i++) {
+                mText[i] = text.charAt(start + i);
+            }
+        }
+        mLength = length;
+        return true;
+    }
+
+    /**
+     * Loads the chars in [start, end) of the array to be parsed.
+     *
+     * @return false if the text is too long for the scanner
+     */
+    boolean setText(char[] text, int start, int end) {
+        final int length = end - start;
+        if (length > MAX_LENGTH) {
+            return false;
+        }
+        System.arraycopy(text, start, mText, 0, length);
+        mLength = length;
+        return true;
+    }
+
+    /**
+     * Loads the bytes in [start, end) of the buffer to be parsed, one char per byte. The
+     * position of the buffer is left untouched. Bytes outside of ASCII are never part of a
+     * date that the scanner accepts.
+     *
+     * @return false if the text is too long for the scanner
+     */
+    boolean setText(ByteBuffer buffer, int start, int end) {
+        final int length = end - start;
+        if (length > MAX_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            mText[i] = (char) (buffer.get(start + i) & 0xFF);
+        }
+        mLength = length;
+        return true;
+    }
+
+    /**
+     * @return true if the loaded text is the same as the given string
+     */
+    boolean textEquals(String string) {
+        if (string.length() != mLength) {
+            return false;
+        }
+        for (int i = 0; i < mLength; i++) {
+            if (mText[i] != string.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses the loaded text, trying the pattern without a year first unless a year is
+     * required.
+     *
+     * @return the time in milliseconds in the UTC time zone, {@link #NO_MATCH} or
+     * {@link #UNSUPPORTED}. If {@link #isNoYear()} is true the time is that of the date in 1970.
+     */
+    long parse(boolean mustContainYear) {
+        mNoYear = false;
+        if (!mustContainYear) {
+            final long result = scan(NO_YEAR_PROGRAM);
+            if (result == 0) {
+                mNoYear = true;
+                return toMillis();
+            } else if (result == UNSUPPORTED) {
+                return UNSUPPORTED;
+            }
+        }
+        for (int[] program : PROGRAMS) {
+            final long result = scan(program);
+            if (result == 0) {
+                final int year = mFields[YEAR];
+                if (year < MIN_YEAR || year > MAX_YEAR) {
+                    return UNSUPPORTED;
+                }
+                return toMillis();
+            } else if (result == UNSUPPORTED) {
+                return UNSUPPORTED;
+            }
+        }
+        return NO_MATCH;
+    }
+
+    /**
+     * @return true if the last successful {@link #parse(boolean)} matched the pattern without a
+     * year
+     */
+    boolean isNoYear() {
+        return mNoYear;
+    }
+
+    /**
+     * Converts the result of parsing a date without a year to the time that
+     * {@link DateUtils#parseDate(String, boolean)} reports for it: the same day of the year with
+     * the year set to 0, which GregorianCalendar treats as 1 BC in the Julian calendar.
+     */
+    static long withYearZero(long millis) {
+        final long epochDay = PackedDates.floorDiv(millis, MILLIS_PER_DAY);
+        final int date = PackedDates.fromEpochDay(epochDay);
+        return yearZeroMillis(PackedDates.month(date), PackedDates.dayOfMonth(date))
+                + (millis - epochDay * MILLIS_PER_DAY);
+    }
+
+    /**
+     * @return the start of the given day of 1 BC (year 0 of a lenient GregorianCalendar) in the
+     * UTC time zone
+     */
+    static long yearZeroMillis(int month, int dayOfMonth) {
+        // Julian day number of a Julian calendar date, see
+        // https://en.wikipedia.org/wiki/Julian_day#Converting_Julian_calendar_date_to_Julian_Day_Number
+        final int m = month + 1;
+        final int a = (14 - m) / 12;
+        final int y = 4800 - a;
+        final int mm = m + 12 * a - 3;
+        final long julianDay = dayOfMonth + (153 * mm + 2) / 5 + 365L * y + y / 4 - 32083;
+        return (julianDay - JULIAN_DAY_OF_EPOCH) * MILLIS_PER_DAY;
+    }
+
+    /**
+     * Runs a compiled pattern over the loaded text, storing the parsed fields.
+     *
+     * @return 0 if the whole text matched, otherwise {@link #NO_MATCH} or {@link #UNSUPPORTED}
+     */
+    private long scan(int[] program) {
+        final char[] text = mText;
+        final int length = mLength;
+        // cleared calendar defaults: 1970-01-01T00:00:00.000Z
+        mFields[YEAR] = 1970;
+        mFields[MONTH] = 1;
+        mFields[DAY_OF_MONTH] = 1;
+        mFields[HOUR_OF_DAY] = 0;
+        mFields[MINUTE] = 0;
+        mFields[SECOND] = 0;
+        mFields[MILLISECOND] = 0;
+        int pos = 0;
+        for (int token : program) {
+            if ((token & FIELD_TOKEN) == 0) {
+                if (pos >= length || text[pos] != (char) token) {
+                    return NO_MATCH;
+                }
+                pos++;
+                continue;
+            }
+            if (pos >= length) {
+                return NO_MATCH;
+            }
+            char c = text[pos];
+            if (c == ' ' || c == '\t' || c == '+' || c == 'N' || c > 0x7F) {
+                // whitespace skipping, signs, NaN and non-ASCII digits
+                return UNSUPPORTED;
+            }
+            if (c == '-') {
+                // only a negative number if followed by a digit
+                if (pos + 1 < length && (isDigit(text[pos + 1]) || text[pos + 1] > 0x7F)) {
+                    return UNSUPPORTED;
+                }
+                return NO_MATCH;
+            }
+            // fields directly followed by another field only consume their pattern width
+            final int limit;
+            if ((token & OBEY_COUNT) != 0) {
+                limit = pos + (token & 0xFF);
+                if (limit > length) {
+                    return NO_MATCH;
+                }
+            } else {
+                limit = length;
+            }
+            if (!isDigit(c)) {
+                return NO_MATCH;
+            }
+            int value = 0;
+            while (pos < limit && isDigit(c = text[pos])) {
+                value = value * 10 + (c - '0');
+                if (value > MAX_FIELD_VALUE) {
+                    return UNSUPPORTED;
+                }
+                pos++;
+            }
+            if (pos < limit && (c == 'E' || c == ',' || c > 0x7F)) {
+                // exponents, grouping and non-ASCII digits
+                return UNSUPPORTED;
+            }
+            mFields[(token >> 8) & 0xFF] = value;
+        }
+        return pos == length ? 0 : NO_MATCH;
+    }
+
+    /**
+     * Converts the parsed fields the same way a lenient GregorianCalendar does
+     */
+    private long toMillis() {
+        final int month = mFields[MONTH] - 1;
+        final int year = mFields[YEAR] + PackedDates.floorDiv(month, 12);
+        final long epochDay = PackedDates.toEpochDay(year, PackedDates.floorMod(month, 12), 1)
+                + mFields[DAY_OF_MONTH] - 1;
+        final long timeOfDay = ((mFields[HOUR_OF_DAY] * 60L + mFields[MINUTE]) * 60L
+                + mFields[SECOND]) * 1000L + mFields[MILLISECOND];
+        return epochDay * MILLIS_PER_DAY + timeOfDay;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int[] compile(String pattern) {
+        final int[] tokens = new int[pattern.length()];
+        int count = 0;
+        for (int i = 0; i < pattern.length(); ) {
+            final char c = pattern.charAt(i);
+            if (c == '\'') {
+                final int close = pattern.indexOf('\'', i + 1);
+                for (int j = i + 1; j < close; j++) {
+                    tokens[count++] = pattern.charAt(j);
+                }
+                i = close + 1;
+            } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                int width = 1;
+                while (i + width < pattern.length() && pattern.charAt(i + width) == c) {
+                    width++;
+                }
+                tokens[count++] = FIELD_TOKEN | (field(c) << 8) | width;
+                i += width;
+            } else {
+                tokens[count++] = c;
+                i++;
+            }
+        }
+        for (int i = 0; i < count - 1; i++) {
+            if ((tokens[i] & FIELD_TOKEN) != 0 && (tokens[i + 1] & FIELD_TOKEN) != 0) {
+                tokens[i] |= OBEY_COUNT;
+            }
+        }
+        final int[] program = new int[count];
+        System.arraycopy(tokens, 0, program, 0, count);
+        return program;
+    }
+
+    private static int field(char c) {
+        switch (c) {
+            case 'y':
+                return YEAR;
+            case 'M':
+                return MONTH;
+            case 'd':
+                return DAY_OF_MONTH;
+            case 'H':
+                return HOUR_OF_DAY;
+            case 'm':
+                return MINUTE;
+            case 's':
+                return SECOND;
+            case 'S':
+                return MILLISECOND;
+            default:
+                throw new IllegalArgumentException("Bad pattern character '" + c + "'");
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.tsongkha.spinnerdatepicker;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes dates in the four ISO 8601 shapes of the {@link CommonDateUtils} formats without
+ * locking or allocating.
+ *
+ * Dates are given as fields, as epoch days or as times in milliseconds in the UTC time zone, and
+ * written to a caller supplied char array, StringBuilder or ByteBuffer. Epoch values use the
+ * proleptic Gregorian calendar, so they are written the same as the SimpleDateFormats from
+ * 1582-10-15 on. Years are written with at least four digits, and years before 0 with a minus
+ * sign as in ISO 8601.
+ */
+public final class IsoDateWriter {
+
+    /**
+     * Same shape as {@link CommonDateUtils#FULL_DATE_FORMAT}, {@code yyyy-MM-dd}
+     */
+    public static final int FULL_DATE = 0;
+
+    /**
+     * Same shape as {@link CommonDateUtils#DATE_AND_TIME_FORMAT},
+     * {@code yyyy-MM-dd'T'HH:mm:ss.SSS'Z'}
+     */
+    public static final int DATE_AND_TIME = 1;
+
+    /**
+     * Same shape as {@link CommonDateUtils#NO_YEAR_DATE_FORMAT}, {@code --MM-dd}
+     */
+    public static final int NO_YEAR_DATE = 2;
+
+    /**
+     * Same shape as {@link CommonDateUtils#NO_YEAR_DATE_AND_TIME_FORMAT},
+     * {@code --MM-dd'T'HH:mm:ss.SSS'Z'}
+     */
+    public static final int NO_YEAR_DATE_AND_TIME = 3;
+
+    /**
+     * Enough for any shape with an int year
+     */
+    public static final int MAX_LENGTH = 32;
+
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+
+    // keeps the years of epoch values within what PackedDates can hold
+    private static final long MIN_EPOCH_DAY = PackedDates.toEpochDay(-999999, 0, 1);
+    private static final long MAX_EPOCH_DAY = PackedDates.toEpochDay(999999, 11, 31);
+
+    // for the StringBuilder and ByteBuffer targets
+    private static final ThreadLocal<char[]> BUFFERS = new ThreadLocal<char[]>() {
+        @Override
+        protected char[] initialValue() {
+            return new char[MAX_LENGTH];
+        }
+    };
+
+    private IsoDateWriter() {
+    }
+
+    /**
+     * Writes a date to the array.
+     *
+     * @param shape One of {@link #FULL_DATE}, {@link #DATE_AND_TIME}, {@link #NO_YEAR_DATE} or
+     *              {@link #NO_YEAR_DATE_AND_TIME}. The year is ignored by the shapes without
+     *              one, and the time by the shapes without one.
+     * @param month The zero based month, as in {@link java.util.Calendar}
+     * @param out   Needs room for {@link #MAX_LENGTH} chars from the offset, or for the exact
+     *              length of the date
+     * @return the number of chars written
+     */
+    public static int write(int shape, int year, int month, int dayOfMonth, int hourOfDay,
+                            int minute, int second, int millisecond, char[] out, int offset) {
+        checkFields(shape, month, dayOfMonth, hourOfDay, minute, second, millisecond);
+        int pos = offset;
+        if (shape == FULL_DATE || shape == DATE_AND_TIME) {
+            pos = writeYear(year, out, pos);
+        } else {
+            out[pos++] = '-';
+        }
+        out[pos++] = '-';
+        pos = writeDigits(month + 1, 2, out, pos);
+        out[pos++] = '-';
+        pos = writeDigits(dayOfMonth, 2, out, pos);
+        if (shape == DATE_AND_TIME || shape == NO_YEAR_DATE_AND_TIME) {
+            out[pos++] = 'T';
+            pos = writeDigits(hourOfDay, 2, out, pos);
+            out[pos++] = ':';
+            pos = writeDigits(minute, 2, out, pos);
+            out[pos++] = ':';
+            pos = writeDigits(second, 2, out, pos);
+            out[pos++] = '.';
+            pos = writeDigits(millisecond, 3, out, pos);
+            out[pos++] = 'Z';
+        }
+        return pos - offset;
+    }
+
+    /**
+     * Same as {@link #write(int, int, int, int, int, int, int, int, char[], int)}, appending to
+     * the builder.
+     */
+    public static int write(int shape, int year, int month, int dayOfMonth, int hourOfDay,
+                            int minute, int second, int millisecond, StringBuilder out) {
+        final char[] buffer = BUFFERS.get();
+        final int length = write(shape, year, month, dayOfMonth, hourOfDay, minute, second,
+                                 millisecond, buffer, 0);
+        out.append(buffer, 0, length);
+        return length;
+    }
+
+    /**
+     * Same as {@link #write(int, int, int, int, int, int, int, int, char[], int)}, putting one
+     * ASCII byte per char at the position of the buffer, which is moved past them.
+     *
+     * @throws BufferOverflowException if the date does not fit, in which case nothing is
+     *                                 written
+     */
+    public static int write(int shape, int year, int month, int dayOfMonth, int hourOfDay,
+                            int minute, int second, int millisecond, ByteBuffer out) {
+        final char[] buffer = BUFFERS.get();
+        final int length = write(shape, year, month, dayOfMonth, hourOfDay, minute, second,
+                                 millisecond, buffer, 0);
+        put(buffer, length, out);
+        return length;
+    }
+
+    /**
+     * Writes the date of a number of days since 1970-01-01, at midnight for the shapes with a
+     * time.
+     *
+     * @see #write(int, int, int, int, int, int, int, int, char[], int)
+     */
+    public static int writeEpochDay(int shape, long epochDay, char[] out, int offset) {
+        final int date = fromEpochDay(epochDay);
+        return write(shape, PackedDates.year(date), PackedDates.month(date),
+                     PackedDates.dayOfMonth(date), 0, 0, 0, 0, out, offset);
+    }
+
+    /**
+     * @see #writeEpochDay(int, long, char[], int)
+     */
+    public static int writeEpochDay(int shape, long epochDay, StringBuilder out) {
+        final int date = fromEpochDay(epochDay);
+        return write(shape, PackedDates.year(date), PackedDates.month(date),
+                     PackedDates.dayOfMonth(date), 0, 0, 0, 0, out);
+    }
+
+    /**
+     * @see #writeEpochDay(int, long, char[], int)
+     */
+    public static int writeEpochDay(int shape, long epochDay, ByteBuffer out) {
+        final int date = fromEpochDay(epochDay);
+        return write(shape, PackedDates.year(date), PackedDates.month(date),
+                     PackedDates.dayOfMonth(date), 0, 0, 0, 0, out);
+    }
+
+    /**
+     * Writes a time in milliseconds since 1970-01-01T00:00:00Z in the UTC time zone.
+     *
+     * @see #write(int, int, int, int, int, int, int, int, char[], int)
+     */
+    public static int writeEpochMillis(int shape, long millis, char[] out, int offset) {
+        final long epochDay = PackedDates.floorDiv(millis, MILLIS_PER_DAY);
+        final int date = fromEpochDay(epochDay);
+        final int millisOfDay = (int) (millis - epochDay * MILLIS_PER_DAY);
+        return write(shape, PackedDates.year(date), PackedDates.month(date),
+                     PackedDates.dayOfMonth(date), millisOfDay / 3600000,
+                     millisOfDay / 60000 % 60, millisOfDay / 1000 % 60, millisOfDay % 1000,
+                     out, offset);
+    }
+
+    /**
+     * @see #writeEpochMillis(int, long, char[], int)
+     */
+    public static int writeEpochMillis(int shape, long millis, StringBuilder out) {
+        final char[] buffer = BUFFERS.get();
+        final int length = writeEpochMillis(shape, millis, buffer, 0);
+        out.append(buffer, 0, length);
+        return length;
+    }
+
+    /**
+     * @see #writeEpochMillis(int, long, char[], int)
+     */
+    public static int writeEpochMillis(int shape, long millis, ByteBuffer out) {
+        final char[] buffer = BUFFERS.get();
+        final int length = writeEpochMillis(shape, millis, buffer, 0);
+        put(buffer, length, out);
+        return length;
+    }
+
+    private static void put(char[] buffer, int length, ByteBuffer out) {
+        if (out.remaining() < length) {
+            throw new BufferOverflowException();
+        }
+        for (int i = 0; i < length; i++) {
+            out.put((byte) buffer[i]);
+        }
+    }
+
+    private static int fromEpochDay(long epochDay) {
+        if (epochDay < MIN_EPOCH_DAY || epochDay > MAX_EPOCH_DAY) {
+            throw new IllegalArgumentException("Epoch day out of range " + epochDay);
+        }
+        return PackedDates.fromEpochDay(epochDay);
+    }
+
+    private static int writeYear(int year, char[] out, int pos) {
+        long value = year;
+        if (value < 0) {
+            out[pos++] = '-';
+            value = -value;
+        }
+        int digits = 4;
+        for (long limit = 10000; limit <= value && digits < 10; limit *= 10) {
+            digits++;
+        }
+        for (int i = pos + digits - 1; i >= pos; i--) {
+            out[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return pos + digits;
+    }
+
+    private static int writeDigits(int value, int digits, char[] out, int pos) {
+        for (int i = pos + digits - 1; i >= pos; i--) {
+            out[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return pos + digits;
+    }
+
+    private static void checkFields(int shape, int month, int dayOfMonth, int hourOfDay,
+                                    int minute, int second, int millisecond) {
+        if (shape < FULL_DATE || shape > NO_YEAR_DATE_AND_TIME) {
+            throw new IllegalArgumentException("Unknown shape " + shape);
+        }
+        if (month < 0 || month > 11 || dayOfMonth < 1 || dayOfMonth > 31 || hourOfDay < 0
+                || hourOfDay > 23 || minute < 0 || minute > 59 || second < 0 || second > 59
+                || millisecond < 0 || millisecond > 999) {
+            throw new IllegalArgumentException("Field out of range");
+        }
+    }
+}
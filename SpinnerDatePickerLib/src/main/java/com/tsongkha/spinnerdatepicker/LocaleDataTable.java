@@ -0,0 +1,360 @@
+package com.tsongkha.spinnerdatepicker;
+
+import android.content.Context;
+import android.os.Build;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A binary file of {@link PickerLocaleData} in the app's cache directory, so that a process can
+ * skip the ICU lookups of the locales used by earlier ones.
+ *
+ * Only {@link SpinnerDatePicker#prewarm} opens and writes the file, in the background. Pickers
+ * read the table it opened, if it did, and never touch the file themselves. The locale data
+ * comes with the OS, so a file is only read by the build of the OS that wrote it. Locales are
+ * appended to the end of the file under a file lock, and a record cut short by a crash is
+ * dropped by the next append. The file is only written again from the start when it was written
+ * by another build of the OS.
+ *
+ * The table is not generated when the library is built: month names and date format orders
+ * come from the device's ICU data, which differs between OS versions and vendors, so a table
+ * made on the build machine would not match what the device itself gives. The file is small and
+ * grows by appends, so it is read into memory whole rather than mapped. Locales missing from the
+ * table are looked up through ICU by {@link PickerLocaleData} as before.
+ *
+ * Layout, in big endian order:
+ * <pre>
+ * int magic, int version, short fingerprint length, fingerprint bytes,
+ * records: int record length, short key length, key bytes, byte flags, byte number of months,
+ *          byte[3] date format order, byte month count, (short length, bytes)[month count]
+ * </pre>
+ * Strings are UTF-8 and locales are keyed by {@link #keyOf(Locale)}.
+ */
+final class LocaleDataTable {
+
+    static final String FILE_NAME = "spinnerdatepicker-locales.bin";
+
+    private static final int MAGIC = 0x5344504c;
+    private static final int VERSION = 2;
+
+    private static final int FLAG_NUMERIC_MONTHS = 1;
+    private static final int FLAG_DATE_FORMAT_ORDER = 2;
+
+    private static final int DATE_FORMAT_ORDER_LENGTH = 3;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final LocaleDataTable EMPTY =
+            new LocaleDataTable(null, Collections.<String, Integer>emptyMap());
+
+    private static volatile LocaleDataTable sTable;
+
+    // null for the empty table
+    private final ByteBuffer mBuffer;
+
+    // the offset of each locale's entry, just after its key
+    private final Map<String, Integer> mOffsets;
+
+    private LocaleDataTable(ByteBuffer buffer, Map<String, Integer> offsets) {
+        mBuffer = buffer;
+        mOffsets = offsets;
+    }
+
+    /**
+     * @return the table opened by {@link #open(Context)}, or null if it isn't open yet
+     */
+    static LocaleDataTable peek() {
+        return sTable;
+    }
+
+    /**
+     * Reads the app's table on the first call of the process. Not to be called on the main
+     * thread.
+     *
+     * @return the table of the app
+     */
+    static synchronized LocaleDataTable open(Context context) {
+        if (sTable == null) {
+            sTable = open(getFile(context), fingerprint());
+        }
+        return sTable;
+    }
+
+    /**
+     * @return the table in the file, or an empty table if the file is missing, unreadable or
+     * written by another build of the OS
+     */
+    static synchronized LocaleDataTable open(File file, String fingerprint) {
+        if (!file.isFile()) {
+            return EMPTY;
+        }
+        try {
+            final FileInputStream input = new FileInputStream(file);
+            final ByteBuffer buffer;
+            try {
+                final FileChannel channel = input.getChannel();
+                // so that a record is either all there or not at all
+                channel.lock(0L, Long.MAX_VALUE, true);
+                buffer = readFully(channel);
+            } finally {
+                // releases the lock
+                input.close();
+            }
+            final int recordsOffset = headerLength(buffer, fingerprint.getBytes(UTF_8));
+            if (recordsOffset < 0) {
+                return EMPTY;
+            }
+            final Map<String, Integer> offsets = new HashMap<>();
+            scan(buffer, recordsOffset, offsets);
+            return new LocaleDataTable(buffer, offsets);
+        } catch (IOException | RuntimeException e) {
+            return EMPTY;
+        }
+    }
+
+    /**
+     * @return whether the table has the locale of the given {@link #keyOf(Locale) key}
+     */
+    boolean contains(String key) {
+        return mOffsets.containsKey(key);
+    }
+
+    /**
+     * @return the data of the locale, or null if the table doesn't have it
+     */
+    PickerLocaleData read(Locale locale) {
+        final String key = keyOf(locale);
+        final Integer offset = key != null ? mOffsets.get(key) : null;
+        if (offset == null) {
+            return null;
+        }
+        try {
+            return readEntry(locale, offset);
+        } catch (RuntimeException e) {
+            // a damaged file, the locale is loaded from ICU
+            return null;
+        }
+    }
+
+    /**
+     * Adds the entries that the app's file doesn't have yet to its end. Not to be called on the
+     * main thread.
+     *
+     * @param entries The data of each locale, keyed by {@link #keyOf(Locale)}
+     */
+    static void append(Context context, Map<String, PickerLocaleData> entries) {
+        append(getFile(context), fingerprint(), entries);
+    }
+
+    /**
+     * Adds the entries that the file doesn't have yet to its end, after dropping a last record
+     * that was cut short. The file is started again if it is missing, damaged or written by
+     * another build of the OS. Nothing is written if this fails.
+     *
+     * @param entries The data of each locale, keyed by {@link #keyOf(Locale)}
+     */
+    static synchronized void append(File file, String fingerprint,
+                                    Map<String, PickerLocaleData> entries) {
+        try {
+            final RandomAccessFile output = new RandomAccessFile(file, "rw");
+            try {
+                final FileChannel channel = output.getChannel();
+                // other processes of the app may be appending too
+                channel.lock();
+                final ByteBuffer existing = readFully(channel);
+                final byte[] fingerprintBytes = fingerprint.getBytes(UTF_8);
+                final Map<String, Integer> offsets = new HashMap<>();
+                final int headerLength = headerLength(existing, fingerprintBytes);
+                final int end = headerLength < 0 ? 0 : scan(existing, headerLength, offsets);
+
+                final Map<String, byte[]> records = new LinkedHashMap<>();
+                int size = headerLength < 0 ? 8 + 2 + fingerprintBytes.length : 0;
+                for (Map.Entry<String, PickerLocaleData> entry : entries.entrySet()) {
+                    if (!offsets.containsKey(entry.getKey())) {
+                        final byte[] keyBytes = entry.getKey().getBytes(UTF_8);
+                        records.put(entry.getKey(), keyBytes);
+                        size += 4 + recordLength(keyBytes, entry.getValue());
+                    }
+                }
+                if (records.isEmpty() && end == existing.limit()) {
+                    return;
+                }
+
+                final ByteBuffer buffer = ByteBuffer.allocate(size);
+                if (headerLength < 0) {
+                    buffer.putInt(MAGIC).putInt(VERSION);
+                    putString(buffer, fingerprintBytes);
+                }
+                for (Map.Entry<String, byte[]> record : records.entrySet()) {
+                    final PickerLocaleData data = entries.get(record.getKey());
+                    buffer.putInt(recordLength(record.getValue(), data));
+                    putEntry(buffer, record.getValue(), data);
+                }
+                buffer.flip();
+                channel.truncate(end);
+                long position = end;
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+            } finally {
+                // releases the lock
+                output.close();
+            }
+        } catch (IOException | RuntimeException e) {
+            // the locales are written by a later process
+        }
+    }
+
+    /**
+     * @return the key of the locale in the file, or null if the locale can't be stored. Before
+     * Lollipop locales only have a language, country and variant; from Lollipop on they are
+     * keyed by their language tag, and locales that the tag doesn't give back exactly are not
+     * stored.
+     */
+    static String keyOf(Locale locale) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+            return locale.getLanguage() + '_' + locale.getCountry() + '_' + locale.getVariant();
+        }
+        final String tag = locale.toLanguageTag();
+        return Locale.forLanguageTag(tag).equals(locale) ? tag : null;
+    }
+
+    // the length of the header if the buffer starts with the one of the fingerprint, or -1
+    private static int headerLength(ByteBuffer buffer, byte[] fingerprint) {
+        final int length = 8 + 2 + fingerprint.length;
+        if (buffer.limit() < length || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                || !matches(buffer, 8, fingerprint)) {
+            return -1;
+        }
+        return length;
+    }
+
+    /**
+     * Puts the offset of the entry of each whole record from the given offset on in offsets,
+     * keyed by locale.
+     *
+     * @return the end of the last whole record
+     */
+    private static int scan(ByteBuffer buffer, int offset, Map<String, Integer> offsets) {
+        while (offset + 4 <= buffer.limit()) {
+            final int length = buffer.getInt(offset);
+            if (length < 2 || length > buffer.limit() - offset - 4) {
+                break;
+            }
+            final int keyLength = buffer.getShort(offset + 4) & 0xFFFF;
+            if (keyLength > length - 2) {
+                break;
+            }
+            final String key = readString(buffer, offset + 4);
+            if (!offsets.containsKey(key)) {
+                offsets.put(key, offset + 4 + 2 + keyLength);
+            }
+            offset += 4 + length;
+        }
+        return offset;
+    }
+
+    private static int recordLength(byte[] keyBytes, PickerLocaleData data) {
+        int length = 2 + keyBytes.length + 3 + DATE_FORMAT_ORDER_LENGTH;
+        for (String month : data.getShortMonths()) {
+            length += 2 + month.getBytes(UTF_8).length;
+        }
+        return length;
+    }
+
+    private static void putEntry(ByteBuffer buffer, byte[] keyBytes, PickerLocaleData data) {
+        putString(buffer, keyBytes);
+        final char[] order = data.getDateFormatOrder();
+        int flags = 0;
+        if (data.numericMonths) {
+            flags |= FLAG_NUMERIC_MONTHS;
+        }
+        if (order != null) {
+            flags |= FLAG_DATE_FORMAT_ORDER;
+        }
+        buffer.put((byte) flags);
+        buffer.put((byte) data.numberOfMonths);
+        for (int i = 0; i < DATE_FORMAT_ORDER_LENGTH; i++) {
+            buffer.put(order != null ? (byte) order[i] : 0);
+        }
+        final String[] months = data.getShortMonths();
+        buffer.put((byte) months.length);
+        for (String month : months) {
+            putString(buffer, month.getBytes(UTF_8));
+        }
+    }
+
+    private PickerLocaleData readEntry(Locale locale, int offset) {
+        final int flags = mBuffer.get(offset);
+        final int numberOfMonths = mBuffer.get(offset + 1);
+        char[] order = null;
+        if ((flags & FLAG_DATE_FORMAT_ORDER) != 0) {
+            order = new char[DATE_FORMAT_ORDER_LENGTH];
+            for (int i = 0; i < DATE_FORMAT_ORDER_LENGTH; i++) {
+                order[i] = (char) mBuffer.get(offset + 2 + i);
+            }
+        }
+        int pos = offset + 2 + DATE_FORMAT_ORDER_LENGTH;
+        final String[] months = new String[mBuffer.get(pos++)];
+        for (int i = 0; i < months.length; i++) {
+            months[i] = readString(mBuffer, pos);
+            pos += 2 + (mBuffer.getShort(pos) & 0xFFFF);
+        }
+        return new PickerLocaleData(locale, numberOfMonths, (flags & FLAG_NUMERIC_MONTHS) != 0,
+                                    months, order);
+    }
+
+    private static ByteBuffer readFully(FileChannel channel) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // until the end of the file
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static String readString(ByteBuffer buffer, int offset) {
+        final byte[] bytes = new byte[buffer.getShort(offset) & 0xFFFF];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(offset + 2 + i);
+        }
+        return new String(bytes, UTF_8);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    // whether the length prefixed string at the offset has the given bytes
+    private static boolean matches(ByteBuffer buffer, int offset, byte[] bytes) {
+        if ((buffer.getShort(offset) & 0xFFFF) != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (buffer.get(offset + 2 + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static File getFile(Context context) {
+        return new File(context.getCacheDir(), FILE_NAME);
+    }
+
+    private static String fingerprint() {
+        return Build.FINGERPRINT != null ? Build.FINGERPRINT : "";
+    }
+}
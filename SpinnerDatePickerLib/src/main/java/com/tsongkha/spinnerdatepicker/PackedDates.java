@@ -0,0 +1,238 @@
+package com.tsongkha.spinnerdatepicker;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Primitive date arithmetic for the picker.
+ *
+ * A date is packed into a single int as {@code year << 9 | month << 5 | dayOfMonth}, where
+ * month is zero based for compatibility with {@link java.util.Calendar}. Packed values of
+ * non-negative years compare in the same order as the dates they represent, so min/max checks
+ * are plain int comparisons. All arithmetic uses the proleptic Gregorian calendar and nothing
+ * here allocates.
+ */
+final class PackedDates {
+
+    private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    private static final int[] DAYS_BEFORE_MONTH = {0, 31, 59, 90, 120, 151, 181, 212, 243, 273,
+            304, 334};
+
+    /**
+     * Days from 0000-03-01 to 1970-01-01
+     */
+    private static final long DAYS_0000_TO_1970 = 719468L;
+
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+
+    /**
+     * The last year whose dates fit in a packed int
+     */
+    static final int MAX_YEAR = Integer.MAX_VALUE >> 9;
+
+    /**
+     * The epoch days of 0000-01-01 and of the last day of {@link #MAX_YEAR}, the range of dates
+     * that can be packed and compared
+     */
+    static final long MIN_EPOCH_DAY = toEpochDay(0, Calendar.JANUARY, 1);
+    static final long MAX_EPOCH_DAY = toEpochDay(MAX_YEAR, Calendar.DECEMBER, 31);
+
+    private PackedDates() {
+    }
+
+    static int pack(int year, int month, int dayOfMonth) {
+        return (year << 9) | (month << 5) | dayOfMonth;
+    }
+
+    static int year(int packed) {
+        return packed >> 9;
+    }
+
+    static int month(int packed) {
+        return (packed >> 5) & 0xF;
+    }
+
+    static int dayOfMonth(int packed) {
+        return packed & 0x1F;
+    }
+
+    static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    static int daysInMonth(int year, int month) {
+        return month == Calendar.FEBRUARY && isLeapYear(year) ? 29 : DAYS_IN_MONTH[month];
+    }
+
+    /**
+     * @return the zero based day of the year
+     */
+    static int dayOfYear(int year, int month, int dayOfMonth) {
+        int dayOfYear = DAYS_BEFORE_MONTH[month] + dayOfMonth - 1;
+        if (month > Calendar.FEBRUARY && isLeapYear(year)) {
+            dayOfYear++;
+        }
+        return dayOfYear;
+    }
+
+    /**
+     * @param dayOfYear The zero based day of the year
+     */
+    static int fromDayOfYear(int year, int dayOfYear) {
+        final boolean leapYear = isLeapYear(year);
+        int month = Calendar.DECEMBER;
+        while (month > Calendar.JANUARY && dayOfYear < DAYS_BEFORE_MONTH[month]
+                + (leapYear && month > Calendar.FEBRUARY ? 1 : 0)) {
+            month--;
+        }
+        final int daysBefore = DAYS_BEFORE_MONTH[month]
+                + (leapYear && month > Calendar.FEBRUARY ? 1 : 0);
+        return pack(year, month, dayOfYear - daysBefore + 1);
+    }
+
+    static int daysInYear(int year) {
+        return isLeapYear(year) ? 366 : 365;
+    }
+
+    /**
+     * @return the day of the week from {@link Calendar#SUNDAY} to {@link Calendar#SATURDAY}
+     */
+    static int dayOfWeek(long epochDay) {
+        // 1970-01-01 was a Thursday
+        return (int) (epochDay - floorDiv(epochDay + 4, 7L) * 7 + 4) + Calendar.SUNDAY;
+    }
+
+    /**
+     * @return the number of days between 1970-01-01 and the given date
+     */
+    static long toEpochDay(int year, int month, int dayOfMonth) {
+        // see http://howardhinnant.github.io/date_algorithms.html#days_from_civil
+        final long y = month < Calendar.MARCH ? year - 1L : year;
+        final long era = floorDiv(y, 400L);
+        final long yearOfEra = y - era * 400L;
+        final int m = month + 1;
+        final long dayOfEraYear = (153L * (m > 2 ? m - 3 : m + 9) + 2) / 5 + dayOfMonth - 1;
+        final long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfEraYear;
+        return era * 146097L + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    static long toEpochDay(int packed) {
+        return toEpochDay(year(packed), month(packed), dayOfMonth(packed));
+    }
+
+    static int fromEpochDay(long epochDay) {
+        // see http://howardhinnant.github.io/date_algorithms.html#civil_from_days
+        final long z = epochDay + DAYS_0000_TO_1970;
+        final long era = floorDiv(z, 146097L);
+        final long dayOfEra = z - era * 146097L;
+        final long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096)
+                / 365;
+        final long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        final long mp = (5 * dayOfYear + 2) / 153;
+        final int dayOfMonth = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        final int month = (int) (mp < 10 ? mp + 2 : mp - 10);
+        final int year = (int) (yearOfEra + era * 400 + (month < Calendar.MARCH ? 1 : 0));
+        return pack(year, month, dayOfMonth);
+    }
+
+    /**
+     * Packs the given fields the same way a lenient {@link Calendar#set(int, int, int)} would,
+     * so that out of range months and days roll over into the neighbouring months and years.
+     */
+    static int normalize(int year, int month, int dayOfMonth) {
+        if (month < Calendar.JANUARY || month > Calendar.DECEMBER) {
+            year += floorDiv(month, 12);
+            month = floorMod(month, 12);
+        }
+        if (dayOfMonth >= 1 && dayOfMonth <= 28) {
+            return pack(year, month, dayOfMonth);
+        }
+        return fromEpochDay(toEpochDay(year, month, 1) + dayOfMonth - 1);
+    }
+
+    /**
+     * Same as {@link Calendar#add(int, int)} with {@link Calendar#DAY_OF_MONTH}
+     */
+    static int addDays(int packed, int days) {
+        final int year = year(packed);
+        final int month = month(packed);
+        final int dayOfMonth = dayOfMonth(packed) + days;
+        if (dayOfMonth >= 1 && dayOfMonth <= daysInMonth(year, month)) {
+            return pack(year, month, dayOfMonth);
+        }
+        return fromEpochDay(toEpochDay(packed) + days);
+    }
+
+    /**
+     * Same as {@link Calendar#add(int, int)} with {@link Calendar#MONTH}: the day of month is
+     * pinned to the last day of the resulting month if it would otherwise overflow.
+     */
+    static int addMonths(int packed, int months) {
+        final int totalMonths = year(packed) * 12 + month(packed) + months;
+        final int year = floorDiv(totalMonths, 12);
+        final int month = floorMod(totalMonths, 12);
+        return pack(year, month, Math.min(dayOfMonth(packed), daysInMonth(year, month)));
+    }
+
+    /**
+     * Same as a lenient {@link Calendar#set(int, int)} with {@link Calendar#YEAR}: February 29th
+     * rolls over to March 1st in a non leap year.
+     */
+    static int withYear(int packed, int year) {
+        return normalize(year, month(packed), dayOfMonth(packed));
+    }
+
+    /**
+     * Applies a step of the day spinner, taking care of wrapping to update greater fields.
+     */
+    static int rollDay(int packed, int oldVal, int newVal) {
+        final int maxDayOfMonth = daysInMonth(year(packed), month(packed));
+        if (oldVal == maxDayOfMonth && newVal == 1) {
+            return addDays(packed, 1);
+        } else if (oldVal == 1 && newVal == maxDayOfMonth) {
+            return addDays(packed, -1);
+        } else {
+            return addDays(packed, newVal - oldVal);
+        }
+    }
+
+    /**
+     * Applies a step of the month spinner, taking care of wrapping to update the year.
+     */
+    static int rollMonth(int packed, int oldVal, int newVal) {
+        if (oldVal == Calendar.DECEMBER && newVal == Calendar.JANUARY) {
+            return addMonths(packed, 1);
+        } else if (oldVal == Calendar.JANUARY && newVal == Calendar.DECEMBER) {
+            return addMonths(packed, -1);
+        } else {
+            return addMonths(packed, newVal - oldVal);
+        }
+    }
+
+    /**
+     * @return the packed date of the given instant in the default time zone, in the proleptic
+     * Gregorian calendar like {@link #fromEpochDay(long)}. The default Calendar is not used, as
+     * it is Buddhist or Japanese in some locales and Julian before 1582.
+     */
+    static int fromMillis(long millis) {
+        final TimeZone timeZone = TimeZone.getDefault();
+        return fromEpochDay(floorDiv(millis + timeZone.getOffset(millis), MILLIS_PER_DAY));
+    }
+
+    // Math.floorDiv and Math.floorMod are only available from API 24
+
+    static int floorDiv(int x, int y) {
+        final int q = x / y;
+        return (x % y != 0 && ((x ^ y) < 0)) ? q - 1 : q;
+    }
+
+    static long floorDiv(long x, long y) {
+        final long q = x / y;
+        return (x % y != 0 && ((x ^ y) < 0)) ? q - 1 : q;
+    }
+
+    static int floorMod(int x, int y) {
+        return x - floorDiv(x, y) * y;
+    }
+}
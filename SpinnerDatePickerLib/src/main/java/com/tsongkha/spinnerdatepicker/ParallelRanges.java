@@ -0,0 +1,153 @@
+package com.tsongkha.spinnerdatepicker;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Splits work over an index range across an {@link Executor} for the bulk operations in
+ * {@link DateUtils}.
+ *
+ * The range is cut into chunks which the calling thread and the workers claim from a shared
+ * counter, so a slow or busy worker never holds up the rest. The calling thread always takes
+ * part and only returns once every chunk is done. ForkJoinPool would do the same job but is
+ * not available on all the API levels the library supports.
+ */
+final class ParallelRanges {
+
+    /**
+     * A piece of work over the indices [from, to)
+     */
+    interface Range {
+        void run(int from, int to);
+    }
+
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private static volatile ExecutorService sDefaultExecutor;
+
+    private ParallelRanges() {
+    }
+
+    /**
+     * @return a shared pool of daemon threads, one less than the number of cores as the calling
+     * thread also does work
+     */
+    static Executor defaultExecutor() {
+        ExecutorService executor = sDefaultExecutor;
+        if (executor == null) {
+            synchronized (ParallelRanges.class) {
+                executor = sDefaultExecutor;
+                if (executor == null) {
+                    final int threads = Math.max(1, parallelism() - 1);
+                    executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                        private final AtomicInteger mCount = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            Thread thread = new Thread(runnable,
+                                    "SpinnerDatePicker #" + mCount.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                    sDefaultExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    static int parallelism() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Runs the range over [0, size), in parallel if the size is at least twice the threshold.
+     *
+     * @param executor The executor for the workers, or null to run on the calling thread only
+     */
+    static void run(int size, int threshold, Executor executor, final Range range) {
+        final int parallelism = parallelism();
+        if (executor == null || parallelism < 2 || size < threshold * 2) {
+            range.run(0, size);
+            return;
+        }
+        final int chunkSize = Math.max(threshold, size / (parallelism * CHUNKS_PER_THREAD));
+        final int chunkCount = (size + chunkSize - 1) / chunkSize;
+        final Worker worker = new Worker(range, size, chunkSize, chunkCount);
+        final int workers = Math.min(parallelism, chunkCount) - 1;
+        for (int i = 0; i < workers; i++) {
+            try {
+                executor.execute(worker);
+            } catch (RejectedExecutionException e) {
+                break;
+            }
+        }
+        worker.run();
+        worker.await();
+    }
+
+    private static final class Worker implements Runnable {
+        private final Range mRange;
+        private final int mSize;
+        private final int mChunkSize;
+        private final int mChunkCount;
+        private final AtomicInteger mNextChunk = new AtomicInteger();
+        private final CountDownLatch mDone;
+        private final AtomicReference<Throwable> mFailure = new AtomicReference<>();
+
+        Worker(Range range, int size, int chunkSize, int chunkCount) {
+            mRange = range;
+            mSize = size;
+            mChunkSize = chunkSize;
+            mChunkCount = chunkCount;
+            mDone = new CountDownLatch(chunkCount);
+        }
+
+        @Override
+        public void run() {
+            int chunk;
+            while ((chunk = mNextChunk.getAndIncrement()) < mChunkCount) {
+                final int from = chunk * mChunkSize;
+                try {
+                    if (mFailure.get() == null) {
+                        mRange.run(from, Math.min(mSize, from + mChunkSize));
+                    }
+                } catch (Throwable t) {
+                    mFailure.compareAndSet(null, t);
+                } finally {
+                    mDone.countDown();
+                }
+            }
+        }
+
+        void await() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    mDone.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            final Throwable failure = mFailure.get();
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            } else if (failure != null) {
+                throw new RuntimeException(failure);
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.tsongkha.spinnerdatepicker;
+
+import android.content.Context;
+import android.util.TypedValue;
+import android.view.Gravity;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.LinearLayout;
+import android.widget.NumberPicker;
+
+/**
+ * Builds the same views as the picker layouts in code, skipping resource parsing and
+ * reflection. Each method mirrors the layout file named in its comment, so changes to one should
+ * be made to the other.
+ */
+final class PickerLayouts {
+
+    static final int DAY_MONTH_WIDTH_DIP = 80;
+
+    static final int YEAR_WIDTH_DIP = 95;
+
+    private static final int CONTAINER_WIDTH_DIP = 270;
+
+    private static final int SPINNER_MARGIN_DIP = 1;
+
+    private PickerLayouts() {
+    }
+
+    /**
+     * Same as {@code date_picker_dialog_container}
+     */
+    static FrameLayout createDialogContainer(Context context) {
+        FrameLayout container = new FrameLayout(context);
+        container.setId(R.id.datePickerContainer);
+        return container;
+    }
+
+    /**
+     * Same as {@code date_picker_container}, added to the given root
+     *
+     * @return the {@code parent} layout the spinners go into
+     */
+    static LinearLayout createPickerContainer(Context context, FrameLayout root) {
+        LinearLayout container = new LinearLayout(context);
+        container.setOrientation(LinearLayout.VERTICAL);
+        root.addView(container, new FrameLayout.LayoutParams(
+                toPixelSize(context, CONTAINER_WIDTH_DIP), ViewGroup.LayoutParams.WRAP_CONTENT,
+                Gravity.CENTER_HORIZONTAL));
+
+        LinearLayout parent = new LinearLayout(context);
+        parent.setId(R.id.parent);
+        parent.setOrientation(LinearLayout.HORIZONTAL);
+        LinearLayout.LayoutParams params = new LinearLayout.LayoutParams(
+                ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+        params.gravity = Gravity.CENTER_HORIZONTAL;
+        container.addView(parent, params);
+        return parent;
+    }
+
+    /**
+     * Same as {@code number_picker_day_month} and {@code number_picker_year}, not yet added
+     *
+     * @param context The context with the spinner theme
+     */
+    static NumberPicker createSpinner(Context context, int widthDip) {
+        NumberPicker spinner = new NumberPicker(context);
+        spinner.setId(R.id.number_picker);
+        spinner.setFocusable(true);
+        spinner.setFocusableInTouchMode(true);
+        LinearLayout.LayoutParams params = new LinearLayout.LayoutParams(
+                toPixelSize(context, widthDip), ViewGroup.LayoutParams.WRAP_CONTENT);
+        // start and end margins are the same as left and right
+        final int margin = toPixelSize(context, SPINNER_MARGIN_DIP);
+        params.setMargins(margin, 0, margin, 0);
+        spinner.setLayoutParams(params);
+        return spinner;
+    }
+
+    /**
+     * Converts the same way as a dimension in a layout file
+     */
+    private static int toPixelSize(Context context, int dip) {
+        final float size = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, dip,
+                                                     context.getResources().getDisplayMetrics());
+        final int res = (int) (size + 0.5f);
+        return res != 0 ? res : (size > 0 ? 1 : 0);
+    }
+}
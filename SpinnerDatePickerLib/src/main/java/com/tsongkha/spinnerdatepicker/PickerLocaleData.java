@@ -0,0 +1,168 @@
+package com.tsongkha.spinnerdatepicker;
+
+import android.content.Context;
+import android.os.Build;
+import android.text.format.DateFormat;
+
+import java.text.DateFormatSymbols;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The locale dependent data a {@link DatePicker} needs to build its spinners.
+ *
+ * Instances are immutable and shared by all pickers of the process, so the symbols, calendar and
+ * patterns of a locale are only loaded by the first picker that uses it. Once
+ * {@link SpinnerDatePicker#prewarm} has opened the {@link LocaleDataTable}, locales used by
+ * earlier processes are read from it instead.
+ */
+final class PickerLocaleData {
+
+    private static final int MONTHS_IN_YEAR = Calendar.DECEMBER + 1;
+
+    private static final ConcurrentMap<Locale, PickerLocaleData> sCache =
+            new ConcurrentHashMap<>();
+
+    final int numberOfMonths;
+
+    final boolean numericMonths;
+
+    private final Locale mLocale;
+
+    private final String[] mShortMonths;
+
+    // slices of mShortMonths indexed by their first and last month, shown by the month spinner
+    // at the min and max dates or when the first or last months have no enabled date
+    private final String[][][] mMonthLabels = new String[MONTHS_IN_YEAR][MONTHS_IN_YEAR][];
+
+    // null before JELLY_BEAN_MR2 where the order depends on the user's date settings
+    private final char[] mDateFormatOrder;
+
+    // cloned by each dialog, as building it looks up the locale's patterns
+    private volatile java.text.DateFormat mTitleDateFormat;
+
+    PickerLocaleData(Locale locale, int numberOfMonths, boolean numericMonths,
+                     String[] shortMonths, char[] dateFormatOrder) {
+        mLocale = locale;
+        this.numberOfMonths = numberOfMonths;
+        this.numericMonths = numericMonths;
+        mShortMonths = shortMonths;
+        for (int minMonth = Calendar.JANUARY; minMonth <= Calendar.DECEMBER; minMonth++) {
+            for (int maxMonth = minMonth; maxMonth <= Calendar.DECEMBER; maxMonth++) {
+                mMonthLabels[minMonth][maxMonth] = Arrays.copyOfRange(shortMonths, minMonth,
+                                                                      maxMonth + 1);
+            }
+        }
+        mDateFormatOrder = dateFormatOrder;
+    }
+
+    private static PickerLocaleData load(Locale locale) {
+        final int numberOfMonths = Calendar.getInstance(locale).getActualMaximum(Calendar.MONTH) + 1;
+        String[] shortMonths = DateFormatSymbols.getInstance(locale).getShortMonths();
+        // Tests whether the locale is one where there are no real month names,
+        // such as Chinese, Japanese, or Korean locales.
+        final boolean numericMonths = Character.isDigit(shortMonths[Calendar.JANUARY].charAt(0));
+        if (numericMonths) {
+            // We're in a locale where a date should either be all-numeric, or all-text.
+            // All-text would require custom NumberPicker formatters for day and year.
+            shortMonths = new String[numberOfMonths];
+            for (int i = 0; i < numberOfMonths; ++i) {
+                shortMonths[i] = String.format("%d", i + 1);
+            }
+        }
+
+        final char[] dateFormatOrder;
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            dateFormatOrder = null;
+        } else {
+            // We use numeric spinners for year and day, but textual months. Ask icu4c what
+            // order the user's locale uses for that combination. http://b/7207103.
+            dateFormatOrder = ICU.getDateFormatOrder(
+                    DateFormat.getBestDateTimePattern(locale, "yyyyMMMdd"));
+        }
+        return new PickerLocaleData(locale, numberOfMonths, numericMonths, shortMonths,
+                                    dateFormatOrder);
+    }
+
+    /**
+     * @return the data of the locale, from the cache, the table opened by {@link #prewarm} or
+     * ICU, in that order. The table's file is never opened here.
+     */
+    static PickerLocaleData get(Locale locale) {
+        PickerLocaleData data = sCache.get(locale);
+        if (data == null) {
+            final LocaleDataTable table = LocaleDataTable.peek();
+            data = table != null ? table.read(locale) : null;
+            if (data == null) {
+                data = load(locale);
+            }
+            final PickerLocaleData existing = sCache.putIfAbsent(locale, data);
+            if (existing != null) {
+                data = existing;
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Opens the table of locales loaded by earlier processes, loads the locale and adds the
+     * cached locales that the table doesn't have to its file, all at once. Not to be called on
+     * the main thread.
+     */
+    static PickerLocaleData prewarm(Context context, Locale locale) {
+        final LocaleDataTable table = LocaleDataTable.open(context);
+        final PickerLocaleData data = get(locale);
+        final Map<String, PickerLocaleData> entries = new HashMap<>();
+        for (Map.Entry<Locale, PickerLocaleData> entry : sCache.entrySet()) {
+            final String key = LocaleDataTable.keyOf(entry.getKey());
+            if (key != null && !table.contains(key)) {
+                entries.put(key, entry.getValue());
+            }
+        }
+        if (!entries.isEmpty()) {
+            LocaleDataTable.append(context, entries);
+        }
+        return data;
+    }
+
+    /**
+     * @return the short month names, not to be modified
+     */
+    String[] getShortMonths() {
+        return mShortMonths;
+    }
+
+    /**
+     * @return the month names from minMonth to maxMonth, not to be modified. The same range
+     * always gives the same array so that spinners can compare labels by reference.
+     */
+    String[] getMonthLabels(int minMonth, int maxMonth) {
+        return mMonthLabels[minMonth][maxMonth];
+    }
+
+    /**
+     * @return the order of the day, month and year spinners, not to be modified, or null if it
+     * has to be read from the user's date settings
+     */
+    char[] getDateFormatOrder() {
+        return mDateFormatOrder;
+    }
+
+    /**
+     * @return a new long date format for the title of a {@link DatePickerDialog}
+     */
+    java.text.DateFormat newTitleDateFormat() {
+        java.text.DateFormat format = mTitleDateFormat;
+        if (format == null) {
+            // racing threads build equal formats
+            format = java.text.DateFormat.getDateInstance(java.text.DateFormat.LONG, mLocale);
+            mTitleDateFormat = format;
+        }
+        return (java.text.DateFormat) format.clone();
+    }
+}
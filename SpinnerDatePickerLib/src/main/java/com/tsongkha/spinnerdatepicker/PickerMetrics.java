@@ -0,0 +1,43 @@
+package com.tsongkha.spinnerdatepicker;
+
+/**
+ * Receives the time spent in the stages of showing and using a picker, for aggregation by the
+ * app. Durations are in nanoseconds of {@link android.os.SystemClock#elapsedRealtimeNanos()},
+ * or of {@link System#nanoTime()} before JELLY_BEAN_MR1.
+ *
+ * Nothing is measured when no metrics are set on the builder. Callbacks are made on the main
+ * thread, except that a picker prepared by {@link SpinnerDatePickerDialogBuilder#buildAsync}
+ * reports {@link #onPickerInflated} and its first {@link #onLocaleApplied} from the executor.
+ */
+public interface PickerMetrics {
+
+    /**
+     * @param nanos The time spent in the dialog constructor, including the picker inflation
+     *              unless it was prepared ahead with buildAsync
+     */
+    void onDialogCreated(long nanos);
+
+    /**
+     * @param nanos The time spent inflating or building the picker views and setting its range
+     */
+    void onPickerInflated(long nanos);
+
+    /**
+     * @param nanos The time spent loading the locale data and ordering the spinners
+     */
+    void onLocaleApplied(long nanos);
+
+    /**
+     * @param nanos The time spent handling one step of a spinner, from the value change to the
+     *              updated spinners, including the date changed listener when it is notified
+     *              immediately
+     */
+    void onDateChangeHandled(long nanos);
+
+    /**
+     * Called when the picker is removed from its window, such as when the dialog is dismissed.
+     *
+     * @param updateCount The number of spinner steps handled since the picker was shown
+     */
+    void onSessionEnded(int updateCount);
+}
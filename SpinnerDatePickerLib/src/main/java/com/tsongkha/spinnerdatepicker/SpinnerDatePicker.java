@@ -0,0 +1,62 @@
+package com.tsongkha.spinnerdatepicker;
+
+import android.content.Context;
+import android.os.Build;
+import android.text.format.DateFormat;
+
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Process wide setup of the library.
+ */
+public final class SpinnerDatePicker {
+
+    private SpinnerDatePicker() {
+    }
+
+    /**
+     * Same as {@link #prewarm(Context, Executor)} with the library's shared background threads.
+     */
+    public static void prewarm(Context context) {
+        prewarm(context, ParallelRanges.defaultExecutor());
+    }
+
+    /**
+     * Loads the date formats and the locale data used by the pickers on the given executor, so
+     * that the first dialog opens as fast as the next ones. Meant to be called from
+     * {@code Application.onCreate()}. The data is kept for the default locale at the time of the
+     * call; pickers in other locales load their own data when created, as they do without this.
+     * The locale data is read from and saved to a file in the app's cache directory here, and
+     * only here, so that the next processes skip looking it up.
+     *
+     * @param executor The executor loading the data. Nothing is loaded if it rejects the task.
+     */
+    public static void prewarm(Context context, Executor executor) {
+        if (context == null) throw new IllegalArgumentException("Context must not be null");
+        if (executor == null) throw new IllegalArgumentException("Executor must not be null");
+
+        final Context appContext = context.getApplicationContext() != null
+                ? context.getApplicationContext() : context;
+        final Locale locale = Locale.getDefault();
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    // runs the static initializer building the ISO 8601 formats
+                    DateUtils.parseDateToMillis(DateUtils.NO_YEAR_DATE_FEB29TH, false);
+                    // kept by the shared cache, and written to the table of locales for the
+                    // next processes if it isn't there yet
+                    PickerLocaleData.prewarm(appContext, locale).newTitleDateFormat();
+                    if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR2) {
+                        // the spinner order comes from the user's date settings there
+                        DateFormat.getDateFormat(appContext);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // the pickers load the same data when they are created
+        }
+    }
+}
@@ -1,23 +1,44 @@
 package com.tsongkha.spinnerdatepicker;
 
+import android.app.Activity;
 import android.content.Context;
+import android.content.ContextWrapper;
+import android.os.Build;
+import android.os.CancellationSignal;
+import android.os.Handler;
+import android.os.Looper;
 
-import java.util.Calendar;
-import java.util.GregorianCalendar;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class SpinnerDatePickerDialogBuilder {
 
+    private static final long PREPARE_THREAD_KEEP_ALIVE_SECONDS = 10;
+
+    private static volatile ThreadPoolExecutor sPrepareExecutor;
+
     private Context context;
     private DatePickerDialog.OnDateSetListener callBack;
+    private DatePickerDialog.OnEpochDaySetListener epochDayCallBack;
     private DatePickerDialog.OnDateCancelListener onCancel;
     private boolean isDayShown = true;
     private boolean isTitleShown = true;
     private String customTitle = "";
     private int theme = 0;                 //default theme
     private int spinnerTheme = 0;          //default theme
-    private Calendar defaultDate = new GregorianCalendar(1980, 0, 1);
-    private Calendar minDate = new GregorianCalendar(1900, 0, 1);
-    private Calendar maxDate = new GregorianCalendar(2100, 0, 1);
+    // dates are packed into ints by PackedDates
+    private int defaultDate = PackedDates.pack(1980, 0, 1);
+    private int minDate = PackedDates.pack(1900, 0, 1);
+    private int maxDate = PackedDates.pack(2100, 0, 1);
+    private int notificationMode = DatePicker.NOTIFY_IMMEDIATE;
+    private DateConstraints dateConstraints;
+    private PickerMetrics metrics;
+    private boolean programmaticLayout = false;
+    private boolean wheelRenderer = false;
 
 
     public SpinnerDatePickerDialogBuilder context(Context context) {
@@ -30,6 +51,15 @@ public class SpinnerDatePickerDialogBuilder {
         return this;
     }
 
+    /**
+     * @param epochDayCallBack Receives the date that was set as a number of days since
+     *                         1970-01-01, in addition to any {@link #callback}
+     */
+    public SpinnerDatePickerDialogBuilder epochDayCallback(DatePickerDialog.OnEpochDaySetListener epochDayCallBack) {
+        this.epochDayCallBack = epochDayCallBack;
+        return this;
+    }
+
     public SpinnerDatePickerDialogBuilder onCancel(DatePickerDialog.OnDateCancelListener onCancel) {
         this.onCancel = onCancel;
         return this;
@@ -46,17 +76,44 @@ public class SpinnerDatePickerDialogBuilder {
     }
 
     public SpinnerDatePickerDialogBuilder defaultDate(int year, int monthIndexedFromZero, int day) {
-        this.defaultDate = new GregorianCalendar(year, monthIndexedFromZero, day);
+        this.defaultDate = PackedDates.normalize(year, monthIndexedFromZero, day);
+        return this;
+    }
+
+    /**
+     * @param epochDay The number of days since 1970-01-01, as given by {@code LocalDate.toEpochDay()}
+     * @throws IllegalArgumentException if the day is before year 0 or too far in the future
+     */
+    public SpinnerDatePickerDialogBuilder defaultEpochDay(long epochDay) {
+        this.defaultDate = packEpochDay(epochDay);
         return this;
     }
 
     public SpinnerDatePickerDialogBuilder minDate(int year, int monthIndexedFromZero, int day) {
-        this.minDate = new GregorianCalendar(year, monthIndexedFromZero, day);
+        this.minDate = PackedDates.normalize(year, monthIndexedFromZero, day);
+        return this;
+    }
+
+    /**
+     * @param epochDay The number of days since 1970-01-01, as given by {@code LocalDate.toEpochDay()}
+     * @throws IllegalArgumentException if the day is before year 0 or too far in the future
+     */
+    public SpinnerDatePickerDialogBuilder minEpochDay(long epochDay) {
+        this.minDate = packEpochDay(epochDay);
         return this;
     }
 
     public SpinnerDatePickerDialogBuilder maxDate(int year, int monthIndexedFromZero, int day) {
-        this.maxDate = new GregorianCalendar(year, monthIndexedFromZero, day);
+        this.maxDate = PackedDates.normalize(year, monthIndexedFromZero, day);
+        return this;
+    }
+
+    /**
+     * @param epochDay The number of days since 1970-01-01, as given by {@code LocalDate.toEpochDay()}
+     * @throws IllegalArgumentException if the day is before year 0 or too far in the future
+     */
+    public SpinnerDatePickerDialogBuilder maxEpochDay(long epochDay) {
+        this.maxDate = packEpochDay(epochDay);
         return this;
     }
 
@@ -75,10 +132,203 @@ public class SpinnerDatePickerDialogBuilder {
         return this;
     }
 
+    /**
+     * @param notificationMode How spinner changes are delivered, one of
+     *                         {@link DatePicker#NOTIFY_IMMEDIATE},
+     *                         {@link DatePicker#NOTIFY_FRAME_COALESCED} or
+     *                         {@link DatePicker#NOTIFY_ON_SETTLE}
+     */
+    public SpinnerDatePickerDialogBuilder notificationMode(int notificationMode) {
+        this.notificationMode = notificationMode;
+        return this;
+    }
+
+    /**
+     * @param dateConstraints The dates that can't be picked, or null to allow all the dates
+     *                        between the min and max dates
+     */
+    public SpinnerDatePickerDialogBuilder dateConstraints(DateConstraints dateConstraints) {
+        this.dateConstraints = dateConstraints;
+        return this;
+    }
+
+    /**
+     * @param metrics Receives the time spent creating and using the picker, or null to measure
+     *                nothing
+     */
+    public SpinnerDatePickerDialogBuilder metrics(PickerMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    /**
+     * @param programmaticLayout Whether to build the picker views in code instead of inflating
+     *                           the layout files. The views have the same ids and spinner theme.
+     */
+    public SpinnerDatePickerDialogBuilder programmaticLayout(boolean programmaticLayout) {
+        this.programmaticLayout = programmaticLayout;
+        return this;
+    }
+
+    /**
+     * @param wheelRenderer Whether to draw the day, month and year spinners as the columns of a
+     *                      single view instead of three NumberPickers. The spinners then have no
+     *                      views of their own, so the day, month and year ids are not used.
+     */
+    public SpinnerDatePickerDialogBuilder wheelRenderer(boolean wheelRenderer) {
+        this.wheelRenderer = wheelRenderer;
+        return this;
+    }
+
     public DatePickerDialog build() {
-        if (context == null) throw new IllegalArgumentException("Context must not be null");
-        if (maxDate.getTime().getTime() <= minDate.getTime().getTime()) throw new IllegalArgumentException("Max date is not after Min date");
+        checkArguments();
+
+        return new DatePickerDialog(context, theme, spinnerTheme, callBack, epochDayCallBack, onCancel, defaultDate, minDate, maxDate, isDayShown, isTitleShown, customTitle, notificationMode, dateConstraints, metrics, programmaticLayout, wheelRenderer);
+    }
+
+    /**
+     * Same as {@link #buildAsync(Executor, DatePickerDialog.OnDialogReadyListener)} with a
+     * background thread of the library's own for preparing dialogs. It is not shared with the
+     * bulk operations in {@link DateUtils}, so a build never waits behind them.
+     */
+    public CancellationSignal buildAsync(DatePickerDialog.OnDialogReadyListener listener) {
+        return buildAsync(prepareExecutor(), listener);
+    }
+
+    /**
+     * @return a single daemon thread that prepares dialogs one at a time and ends when idle
+     */
+    static Executor prepareExecutor() {
+        ThreadPoolExecutor executor = sPrepareExecutor;
+        if (executor == null) {
+            synchronized (SpinnerDatePickerDialogBuilder.class) {
+                executor = sPrepareExecutor;
+                if (executor == null) {
+                    executor = new ThreadPoolExecutor(1, 1,
+                            PREPARE_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                                @Override
+                                public Thread newThread(Runnable runnable) {
+                                    Thread thread = new Thread(runnable,
+                                            "SpinnerDatePicker dialog");
+                                    thread.setDaemon(true);
+                                    return thread;
+                                }
+                            });
+                    executor.allowCoreThreadTimeOut(true);
+                    sPrepareExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
 
-        return new DatePickerDialog(context, theme, spinnerTheme, callBack, onCancel, defaultDate, minDate, maxDate, isDayShown, isTitleShown, customTitle);
+    /**
+     * Builds the dialog without blocking the calling thread. The picker views and the locale
+     * data are prepared on the given executor and the dialog is then created on the main thread.
+     * If the views cannot be created off the main thread they are created with the dialog
+     * instead.
+     *
+     * The listener is not called once the build is cancelled, or if the context is an activity
+     * that is finishing or destroyed by the time the dialog would be created. Cancel the build
+     * when the activity goes away so that the pending work releases it.
+     *
+     * @param executor The executor preparing the picker
+     * @param listener Called on the main thread with the dialog, which is not shown yet
+     * @return A signal to cancel the build with
+     */
+    public CancellationSignal buildAsync(Executor executor, final DatePickerDialog.OnDialogReadyListener listener) {
+        checkArguments();
+        if (listener == null) throw new IllegalArgumentException("Listener must not be null");
+
+        // the builder may be changed once this returns
+        final Context context = this.context;
+        final int theme = this.theme;
+        final int spinnerTheme = this.spinnerTheme;
+        final DatePickerDialog.OnDateSetListener callBack = this.callBack;
+        final DatePickerDialog.OnEpochDaySetListener epochDayCallBack = this.epochDayCallBack;
+        final DatePickerDialog.OnDateCancelListener onCancel = this.onCancel;
+        final int defaultDate = this.defaultDate;
+        final int minDate = this.minDate;
+        final int maxDate = this.maxDate;
+        final boolean isDayShown = this.isDayShown;
+        final boolean isTitleShown = this.isTitleShown;
+        final String customTitle = this.customTitle;
+        final int notificationMode = this.notificationMode;
+        final DateConstraints dateConstraints = this.dateConstraints;
+        final PickerMetrics metrics = this.metrics;
+        final boolean programmaticLayout = this.programmaticLayout;
+        final boolean wheelRenderer = this.wheelRenderer;
+        final Handler mainHandler = new Handler(Looper.getMainLooper());
+        final CancellationSignal cancellationSignal = new CancellationSignal();
+
+        class Prepare implements Runnable {
+            private DatePicker mDatePicker;
+
+            @Override
+            public void run() {
+                if (cancellationSignal.isCanceled()) {
+                    return;
+                }
+                if (Looper.myLooper() != Looper.getMainLooper()) {
+                    try {
+                        mDatePicker = DatePickerDialog.createDatePicker(context, spinnerTheme,
+                                programmaticLayout, wheelRenderer, metrics, minDate, maxDate);
+                    } catch (RuntimeException e) {
+                        // some views need a Looper, leave them to the main thread
+                        mDatePicker = null;
+                    }
+                    mainHandler.post(this);
+                    return;
+                }
+                if (isFinishing(context)) {
+                    return;
+                }
+                listener.onDialogReady(new DatePickerDialog(context, theme, spinnerTheme, callBack, epochDayCallBack, onCancel, defaultDate, minDate, maxDate, isDayShown, isTitleShown, customTitle, notificationMode, dateConstraints, metrics, programmaticLayout, wheelRenderer, mDatePicker));
+            }
+        }
+
+        final Prepare prepare = new Prepare();
+        cancellationSignal.setOnCancelListener(new CancellationSignal.OnCancelListener() {
+            @Override
+            public void onCancel() {
+                mainHandler.removeCallbacks(prepare);
+            }
+        });
+        try {
+            executor.execute(prepare);
+        } catch (RejectedExecutionException e) {
+            mainHandler.post(prepare);
+        }
+        return cancellationSignal;
+    }
+
+    // whether the context belongs to an activity that can no longer show a dialog
+    private static boolean isFinishing(Context context) {
+        while (context instanceof ContextWrapper) {
+            if (context instanceof Activity) {
+                final Activity activity = (Activity) context;
+                return activity.isFinishing()
+                        || (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1
+                            && activity.isDestroyed());
+            }
+            context = ((ContextWrapper) context).getBaseContext();
+        }
+        return false;
+    }
+
+    private static int packEpochDay(long epochDay) {
+        if (epochDay < PackedDates.MIN_EPOCH_DAY || epochDay > PackedDates.MAX_EPOCH_DAY) {
+            throw new IllegalArgumentException("Epoch day " + epochDay + " is not between years 0 and " + PackedDates.MAX_YEAR);
+        }
+        return PackedDates.fromEpochDay(epochDay);
+    }
+
+    private void checkArguments() {
+        if (context == null) throw new IllegalArgumentException("Context must not be null");
+        // packed dates only compare in order from year 0
+        if (minDate < 0) throw new IllegalArgumentException("Min date is before year 0");
+        if (maxDate <= minDate) throw new IllegalArgumentException("Max date is not after Min date");
+        if (notificationMode != DatePicker.NOTIFY_IMMEDIATE && notificationMode != DatePicker.NOTIFY_FRAME_COALESCED && notificationMode != DatePicker.NOTIFY_ON_SETTLE) throw new IllegalArgumentException("Unknown notification mode");
     }
 }
\ No newline at end of file
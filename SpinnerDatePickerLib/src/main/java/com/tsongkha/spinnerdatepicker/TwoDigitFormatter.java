@@ -4,43 +4,78 @@ import android.widget.NumberPicker;
 
 import java.text.DecimalFormatSymbols;
 import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Copy of {android.widget.NumberPicker.TwoDigitFormatter}, modified
  * so that it doesn't use libcore.
  *
  * Use a custom NumberPicker formatting callback to use two-digit minutes
- * strings like "01". Keeping a static formatter etc. is the most efficient
- * way to do this; it avoids creating temporary objects on every call to
- * format().
+ * strings like "01". The strings "00" to "99" are built once per zero digit
+ * and looked up per locale, so format() is an array lookup that creates no
+ * temporary objects for the values a spinner shows.
  */
 public class TwoDigitFormatter implements NumberPicker.Formatter {
-    final StringBuilder mBuilder = new StringBuilder();
 
-    char mZeroDigit;
-    java.util.Formatter mFmt;
+    private static final int TABLE_SIZE = 100;
 
-    final Object[] mArgs = new Object[1];
+    // tables of "00" to "99", one per zero digit, shared by locales with the same digits
+    private static final ConcurrentMap<Character, String[]> TABLES_BY_ZERO_DIGIT =
+            new ConcurrentHashMap<>();
+
+    private static final ConcurrentMap<Locale, String[]> TABLES_BY_LOCALE =
+            new ConcurrentHashMap<>();
+
+    Locale mLocale;
+    String[] mTable;
 
     public TwoDigitFormatter() {
-        final Locale locale = Locale.getDefault();
-        init(locale);
+        init(Locale.getDefault());
     }
 
     private void init(Locale locale) {
-        mFmt = createFormatter(locale);
-        mZeroDigit = getZeroDigit(locale);
+        mLocale = locale;
+        mTable = getTable(locale);
     }
 
     public String format(int value) {
         final Locale currentLocale = Locale.getDefault();
-        if (mZeroDigit != getZeroDigit(currentLocale)) {
+        if (currentLocale != mLocale) {
             init(currentLocale);
         }
-        mArgs[0] = value;
-        mBuilder.delete(0, mBuilder.length());
-        mFmt.format("%02d", mArgs);
-        return mFmt.toString();
+        if (value >= 0 && value < TABLE_SIZE) {
+            return mTable[value];
+        }
+        return String.format(mLocale, "%02d", value);
+    }
+
+    static String[] getTable(Locale locale) {
+        String[] table = TABLES_BY_LOCALE.get(locale);
+        if (table == null) {
+            final char zeroDigit = getZeroDigit(locale);
+            table = TABLES_BY_ZERO_DIGIT.get(zeroDigit);
+            if (table == null) {
+                table = createTable(zeroDigit);
+                final String[] existing = TABLES_BY_ZERO_DIGIT.putIfAbsent(zeroDigit, table);
+                if (existing != null) {
+                    table = existing;
+                }
+            }
+            TABLES_BY_LOCALE.put(locale, table);
+        }
+        return table;
+    }
+
+    private static String[] createTable(char zeroDigit) {
+        final String[] table = new String[TABLE_SIZE];
+        final char[] digits = new char[2];
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            digits[0] = (char) (zeroDigit + i / 10);
+            digits[1] = (char) (zeroDigit + i % 10);
+            table[i] = new String(digits);
+        }
+        return table;
     }
 
     private static char getZeroDigit(Locale locale) {
@@ -48,8 +83,4 @@ public class TwoDigitFormatter implements NumberPicker.Formatter {
         // we need to use the public DecimalFormatSymbols API.
         return DecimalFormatSymbols.getInstance(locale).getZeroDigit();
     }
-
-    private java.util.Formatter createFormatter(Locale locale) {
-        return new java.util.Formatter(mBuilder, locale);
-    }
 }
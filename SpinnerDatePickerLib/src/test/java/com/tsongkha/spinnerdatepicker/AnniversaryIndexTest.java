@@ -0,0 +1,99 @@
+package com.tsongkha.spinnerdatepicker;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.Locale;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the order of the anniversaries and the leap year rules of the index.
+ */
+public class AnniversaryIndexTest {
+
+    private static final int NO_YEAR = 0;
+
+    @Test
+    public void nextWrapsIntoTheFollowingYear() {
+        AnniversaryIndex index = new AnniversaryIndex(
+                new int[]{NO_YEAR, NO_YEAR, NO_YEAR},
+                new int[]{Calendar.JANUARY, Calendar.DECEMBER, Calendar.JUNE},
+                new int[]{5, 24, 1});
+        int[] indices = new int[4];
+        long[] epochDays = new long[4];
+
+        assertEquals(4, index.next(epochDay(2018, Calendar.DECEMBER, 1), indices, epochDays));
+        assertArrayEquals(new int[]{1, 0, 2, 1}, indices);
+        assertArrayEquals(new long[]{epochDay(2018, Calendar.DECEMBER, 24),
+                                     epochDay(2019, Calendar.JANUARY, 5),
+                                     epochDay(2019, Calendar.JUNE, 1),
+                                     epochDay(2019, Calendar.DECEMBER, 24)}, epochDays);
+    }
+
+    @Test
+    public void february29thOnlyComesUpInLeapYears() {
+        AnniversaryIndex index = new AnniversaryIndex(new int[]{NO_YEAR, NO_YEAR},
+                                                      new int[]{Calendar.FEBRUARY, Calendar.MARCH},
+                                                      new int[]{29, 1});
+        int[] indices = new int[3];
+        long[] epochDays = new long[3];
+
+        assertEquals(3, index.next(epochDay(2019, Calendar.FEBRUARY, 1), indices, epochDays));
+        assertArrayEquals(new int[]{1, 0, 1}, indices);
+        assertArrayEquals(new long[]{epochDay(2019, Calendar.MARCH, 1),
+                                     epochDay(2020, Calendar.FEBRUARY, 29),
+                                     epochDay(2020, Calendar.MARCH, 1)}, epochDays);
+    }
+
+    @Test
+    public void datesWithAYearHappenOnce() {
+        AnniversaryIndex index = new AnniversaryIndex(new int[]{2019, NO_YEAR},
+                                                      new int[]{Calendar.MAY, Calendar.MAY},
+                                                      new int[]{10, 10});
+        int[] indices = new int[8];
+
+        assertEquals(4, index.between(epochDay(2018, Calendar.JANUARY, 1),
+                                      epochDay(2020, Calendar.DECEMBER, 31), indices, null));
+        assertArrayEquals(new int[]{1, 0, 1, 1, 0, 0, 0, 0}, indices);
+        assertEquals(1, index.between(epochDay(2019, Calendar.MAY, 11),
+                                      epochDay(2020, Calendar.MAY, 10), indices, null));
+    }
+
+    @Test
+    public void failedParsesAreLeftOut() {
+        AnniversaryIndex index = AnniversaryIndex.fromUtcMillis(new long[]{
+                DateUtils.PARSE_FAILED, DateUtils.parseDateToMillis("--02-29", false)});
+        int[] indices = new int[1];
+        long[] epochDays = new long[1];
+
+        assertEquals(1, index.size());
+        assertEquals(1, index.next(epochDay(2021, Calendar.JANUARY, 1), indices, epochDays));
+        assertEquals(1, indices[0]);
+        assertEquals(epochDay(2024, Calendar.FEBRUARY, 29), epochDays[0]);
+    }
+
+    @Test
+    public void buddhistDefaultLocaleGivesGregorianDates() {
+        final Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(new Locale("th", "TH"));
+        try {
+            AnniversaryIndex index = AnniversaryIndex.fromUtcMillis(new long[]{
+                    DateUtils.parseDateToMillis("2019-05-10", false)});
+            int[] indices = new int[2];
+            long[] epochDays = new long[2];
+
+            assertEquals(1, index.between(epochDay(2018, Calendar.JANUARY, 1),
+                                          epochDay(2020, Calendar.DECEMBER, 31), indices,
+                                          epochDays));
+            assertEquals(epochDay(2019, Calendar.MAY, 10), epochDays[0]);
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    private static long epochDay(int year, int month, int dayOfMonth) {
+        return PackedDates.toEpochDay(year, month, dayOfMonth);
+    }
+}
@@ -0,0 +1,216 @@
+package com.tsongkha.spinnerdatepicker;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.os.CancellationSignal;
+import android.os.Looper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that {@link SpinnerDatePickerDialogBuilder#buildAsync} prepares the picker on the
+ * executor, falls back to the main thread, and drops builds that are cancelled or whose
+ * activity went away.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class BuildAsyncTest {
+
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final List<DatePickerDialog> dialogs = new ArrayList<>();
+    private final List<Thread> inflatingThreads =
+            Collections.synchronizedList(new ArrayList<Thread>());
+
+    private final Executor recordingExecutor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+    };
+
+    private final DatePickerDialog.OnDialogReadyListener listener =
+            new DatePickerDialog.OnDialogReadyListener() {
+                @Override
+                public void onDialogReady(DatePickerDialog dialog) {
+                    assertSame(Looper.getMainLooper(), Looper.myLooper());
+                    dialogs.add(dialog);
+                }
+            };
+
+    private Activity activity;
+
+    @Before
+    public void setUp() {
+        activity = PickerTestSupport.newActivity();
+    }
+
+    @Test
+    public void pickerIsPreparedOnTheExecutor() throws InterruptedException {
+        newBuilder(activity).buildAsync(recordingExecutor, listener);
+        runTaskInBackground();
+        assertTrue(dialogs.isEmpty());
+
+        Robolectric.flushForegroundThreadScheduler();
+        assertDialogReady();
+        assertEquals(1, inflatingThreads.size());
+        assertFalse(inflatingThreads.get(0) == Thread.currentThread());
+    }
+
+    @Test
+    public void defaultBuildDoesNotWaitForTheBulkThreads() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final int bulkThreads = Math.max(1, ParallelRanges.parallelism() - 1);
+        final CountDownLatch busy = new CountDownLatch(bulkThreads);
+        for (int i = 0; i < bulkThreads; i++) {
+            ParallelRanges.defaultExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    busy.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }
+        try {
+            assertTrue(busy.await(5, TimeUnit.SECONDS));
+            newBuilder(activity).buildAsync(listener);
+
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (dialogs.isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+                Robolectric.flushForegroundThreadScheduler();
+            }
+            assertDialogReady();
+            assertEquals("SpinnerDatePicker dialog", inflatingThreads.get(0).getName());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void viewsThatNeedTheMainThreadAreCreatedThere() throws InterruptedException {
+        final Thread mainThread = Thread.currentThread();
+        final Context mainThreadOnly = new ContextWrapper(activity) {
+            @Override
+            public Object getSystemService(String name) {
+                if (Thread.currentThread() != mainThread) {
+                    throw new IllegalStateException("Not on the main thread");
+                }
+                return super.getSystemService(name);
+            }
+        };
+        newBuilder(mainThreadOnly).buildAsync(recordingExecutor, listener);
+        runTaskInBackground();
+
+        Robolectric.flushForegroundThreadScheduler();
+        assertDialogReady();
+        assertEquals(1, inflatingThreads.size());
+        assertSame(mainThread, inflatingThreads.get(0));
+    }
+
+    @Test
+    public void rejectedBuildIsDoneOnTheMainThread() {
+        newBuilder(activity).buildAsync(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        }, listener);
+
+        Robolectric.flushForegroundThreadScheduler();
+        assertDialogReady();
+        assertSame(Thread.currentThread(), inflatingThreads.get(0));
+    }
+
+    @Test
+    public void cancelledBuildIsDropped() throws InterruptedException {
+        newBuilder(activity).buildAsync(recordingExecutor, listener).cancel();
+        runTaskInBackground();
+        Robolectric.flushForegroundThreadScheduler();
+        assertTrue(inflatingThreads.isEmpty());
+        assertTrue(dialogs.isEmpty());
+
+        // cancelled while the dialog waits for the main thread
+        CancellationSignal cancellationSignal = newBuilder(activity)
+                .buildAsync(recordingExecutor, listener);
+        runTaskInBackground();
+        cancellationSignal.cancel();
+        Robolectric.flushForegroundThreadScheduler();
+        assertTrue(dialogs.isEmpty());
+    }
+
+    @Test
+    public void finishingActivityIsNotCalledBack() throws InterruptedException {
+        newBuilder(activity).buildAsync(recordingExecutor, listener);
+        runTaskInBackground();
+        activity.finish();
+
+        Robolectric.flushForegroundThreadScheduler();
+        assertTrue(dialogs.isEmpty());
+    }
+
+    private SpinnerDatePickerDialogBuilder newBuilder(Context context) {
+        return PickerTestSupport.newBuilder(context)
+                .defaultDate(2018, 5, 15)
+                .metrics(new PickerMetrics() {
+                    @Override
+                    public void onDialogCreated(long nanos) {
+                    }
+
+                    @Override
+                    public void onPickerInflated(long nanos) {
+                        inflatingThreads.add(Thread.currentThread());
+                    }
+
+                    @Override
+                    public void onLocaleApplied(long nanos) {
+                    }
+
+                    @Override
+                    public void onDateChangeHandled(long nanos) {
+                    }
+
+                    @Override
+                    public void onSessionEnded(int updateCount) {
+                    }
+                });
+    }
+
+    private void runTaskInBackground() throws InterruptedException {
+        assertEquals(1, tasks.size());
+        Thread thread = new Thread(tasks.remove(0));
+        thread.start();
+        thread.join();
+    }
+
+    private void assertDialogReady() {
+        assertEquals(1, dialogs.size());
+        dialogs.get(0).show();
+        DatePicker datePicker = PickerTestSupport.getDatePicker(dialogs.get(0));
+        assertEquals(2018, datePicker.getYear());
+        assertEquals(5, datePicker.getMonth());
+        assertEquals(15, datePicker.getDayOfMonth());
+    }
+}
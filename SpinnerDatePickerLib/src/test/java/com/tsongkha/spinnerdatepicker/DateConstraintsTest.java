@@ -0,0 +1,112 @@
+package com.tsongkha.spinnerdatepicker;
+
+import android.widget.NumberPicker;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Calendar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the disabled date lookups and that the picker moves off and around disabled dates.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class DateConstraintsTest {
+
+    private static final DateConstraints WEEKDAYS_ONLY = new DateConstraints.Builder()
+            .disableDaysOfWeek(Calendar.SATURDAY, Calendar.SUNDAY)
+            .build();
+
+    @Test
+    public void daysOfWeekAndRangesAreDisabled() {
+        DateConstraints constraints = new DateConstraints.Builder()
+                .disableDaysOfWeek(Calendar.SUNDAY)
+                .disableDate(2018, Calendar.DECEMBER, 25)
+                .disableRange(2019, Calendar.DECEMBER, 30, 2020, Calendar.JANUARY, 2)
+                .build();
+
+        assertFalse(constraints.isEnabled(2018, Calendar.JUNE, 3));
+        assertTrue(constraints.isEnabled(2018, Calendar.JUNE, 4));
+        assertFalse(constraints.isEnabled(2018, Calendar.DECEMBER, 25));
+        assertTrue(constraints.isEnabled(2018, Calendar.DECEMBER, 26));
+        assertFalse(constraints.isEnabled(2019, Calendar.DECEMBER, 31));
+        assertFalse(constraints.isEnabled(2020, Calendar.JANUARY, 2));
+        assertTrue(constraints.isEnabled(2020, Calendar.JANUARY, 3));
+        assertTrue(constraints.isEnabled(2500, Calendar.JANUARY, 1));
+    }
+
+    @Test
+    public void searchesCrossYears() {
+        DateConstraints constraints = new DateConstraints.Builder()
+                .disableRange(2019, Calendar.DECEMBER, 1, 2020, Calendar.FEBRUARY, 29)
+                .build();
+        final int from = PackedDates.pack(2019, Calendar.DECEMBER, 10);
+
+        assertEquals(PackedDates.pack(2020, Calendar.MARCH, 1),
+                     constraints.nextEnabled(from, PackedDates.pack(2030, 0, 1)));
+        assertEquals(PackedDates.pack(2019, Calendar.NOVEMBER, 30),
+                     constraints.previousEnabled(from, PackedDates.pack(2000, 0, 1)));
+        assertEquals(DateConstraints.NO_DATE,
+                     constraints.nextEnabled(from, PackedDates.pack(2020, Calendar.JANUARY, 1)));
+    }
+
+    @Test
+    public void farApartYearsAreDisabled() {
+        DateConstraints constraints = new DateConstraints.Builder()
+                .disableDate(1, Calendar.JANUARY, 1)
+                .disableRange(2020, Calendar.DECEMBER, 31, 2021, Calendar.JANUARY, 1)
+                .disableDate(9999, Calendar.DECEMBER, 31)
+                .build();
+
+        assertFalse(constraints.isEnabled(1, Calendar.JANUARY, 1));
+        assertTrue(constraints.isEnabled(1, Calendar.JANUARY, 2));
+        assertTrue(constraints.isEnabled(2020, Calendar.DECEMBER, 30));
+        assertFalse(constraints.isEnabled(2021, Calendar.JANUARY, 1));
+        assertTrue(constraints.isEnabled(5000, Calendar.JUNE, 15));
+        assertFalse(constraints.isEnabled(9999, Calendar.DECEMBER, 31));
+        assertEquals(PackedDates.pack(2021, Calendar.JANUARY, 2),
+                     constraints.nextEnabled(PackedDates.pack(2020, Calendar.DECEMBER, 31),
+                                             PackedDates.pack(9999, Calendar.DECEMBER, 31)));
+        assertEquals(PackedDates.pack(9999, Calendar.DECEMBER, 30),
+                     constraints.previousEnabled(PackedDates.pack(9999, Calendar.DECEMBER, 31),
+                                                 PackedDates.pack(1, Calendar.JANUARY, 1)));
+        assertEquals(DateConstraints.NO_DATE,
+                     constraints.nextEnabled(PackedDates.pack(1, Calendar.JANUARY, 1),
+                                             PackedDates.pack(1, Calendar.JANUARY, 1)));
+    }
+
+    @Test
+    public void pickerMovesOffDisabledDates() {
+        // June 2nd 2018 is a Saturday, the Friday before is closer than the Monday after
+        DatePickerDialog dialog = show(2018, Calendar.JUNE, 2);
+        DatePicker datePicker = PickerTestSupport.getDatePicker(dialog);
+        assertEquals(1, datePicker.getDayOfMonth());
+
+        PickerTestSupport.step(PickerTestSupport.getSpinner(dialog, R.id.day), 2);
+        assertEquals(4, datePicker.getDayOfMonth());
+    }
+
+    @Test
+    public void spinnerRangeSkipsDisabledEnds() {
+        // June 30th 2018 is a Saturday
+        NumberPicker daySpinner = PickerTestSupport.getSpinner(show(2018, Calendar.JUNE, 15),
+                                                               R.id.day);
+
+        assertEquals(1, daySpinner.getMinValue());
+        assertEquals(29, daySpinner.getMaxValue());
+        assertFalse(daySpinner.getWrapSelectorWheel());
+    }
+
+    private static DatePickerDialog show(int year, int month, int dayOfMonth) {
+        return PickerTestSupport.show(PickerTestSupport.newBuilder()
+                .defaultDate(year, month, dayOfMonth)
+                .dateConstraints(WEEKDAYS_ONLY));
+    }
+}
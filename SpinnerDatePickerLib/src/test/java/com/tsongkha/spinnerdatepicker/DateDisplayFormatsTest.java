@@ -0,0 +1,104 @@
+package com.tsongkha.spinnerdatepicker;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.text.format.DateFormat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Checks that the formats {@link DateUtils#formatDate} keeps per thread follow the locale of the
+ * context and the default locale between calls.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28, shadows = DateDisplayFormatsTest.ShadowLocalizedDateFormat.class)
+public class DateDisplayFormatsTest {
+
+    /**
+     * Robolectric's own shadow gives the same patterns for every locale. This one uses the
+     * context's locale, as the platform does.
+     */
+    @Implements(DateFormat.class)
+    public static class ShadowLocalizedDateFormat {
+
+        @Implementation
+        protected static java.text.DateFormat getDateFormat(Context context) {
+            return java.text.DateFormat.getDateInstance(java.text.DateFormat.SHORT,
+                                                        localeOf(context));
+        }
+
+        @Implementation
+        protected static java.text.DateFormat getLongDateFormat(Context context) {
+            return java.text.DateFormat.getDateInstance(java.text.DateFormat.LONG,
+                                                        localeOf(context));
+        }
+
+        private static Locale localeOf(Context context) {
+            return context.getResources().getConfiguration().getLocales().get(0);
+        }
+    }
+
+    private static final String DATE = "2019-03-04";
+    private static final String NO_YEAR_DATE = "--03-04";
+
+    @Test
+    public void formatsFollowTheConfigurationLocale() {
+        final Context english = withLocale(Locale.US);
+        final Context french = withLocale(Locale.FRANCE);
+        final String englishLong = expected(DateFormat.getLongDateFormat(english), DATE);
+        final String frenchLong = expected(DateFormat.getLongDateFormat(french), DATE);
+        assertNotEquals(englishLong, frenchLong);
+
+        assertEquals(englishLong, DateUtils.formatDate(english, DATE, true));
+        assertEquals(frenchLong, DateUtils.formatDate(french, DATE, true));
+        assertEquals(englishLong, DateUtils.formatDate(english, DATE, true));
+        assertEquals(expected(DateFormat.getDateFormat(french), DATE),
+                     DateUtils.formatDate(french, DATE, false));
+        assertEquals(expected(DateFormat.getDateFormat(english), DATE),
+                     DateUtils.formatDate(english, DATE, false));
+    }
+
+    @Test
+    public void formatsFollowTheDefaultLocale() {
+        final Locale defaultLocale = Locale.getDefault();
+        final Context context = withLocale(Locale.US);
+        try {
+            Locale.setDefault(Locale.US);
+            final String english = expected(
+                    DateUtils.getLocalizedDateFormatWithoutYear(context), NO_YEAR_DATE);
+            assertEquals(english, DateUtils.formatDate(context, NO_YEAR_DATE, false));
+
+            Locale.setDefault(Locale.GERMANY);
+            final String german = expected(
+                    DateUtils.getLocalizedDateFormatWithoutYear(context), NO_YEAR_DATE);
+            assertNotEquals(english, german);
+            assertEquals(german, DateUtils.formatDate(context, NO_YEAR_DATE, false));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    private static Context withLocale(Locale locale) {
+        final Context context = PickerTestSupport.newActivity();
+        final Configuration configuration =
+                new Configuration(context.getResources().getConfiguration());
+        configuration.setLocale(locale);
+        return context.createConfigurationContext(configuration);
+    }
+
+    // the date formatted by a new format, the way formatDate did before keeping them
+    private static String expected(java.text.DateFormat format, String date) {
+        format.setTimeZone(DateUtils.UTC_TIMEZONE);
+        return format.format(DateUtils.parseDate(date, false).getTime());
+    }
+}
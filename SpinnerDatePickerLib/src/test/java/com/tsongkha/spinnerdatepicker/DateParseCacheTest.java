@@ -0,0 +1,60 @@
+package com.tsongkha.spinnerdatepicker;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the results, counters and eviction of the parse cache.
+ */
+public class DateParseCacheTest {
+
+    @Test
+    public void repeatedStringsAreHits() {
+        DateParseCache cache = new DateParseCache(16);
+
+        assertEquals(DateUtils.parseDateToMillis("2019-05-10", true),
+                     cache.parseDateToMillis("2019-05-10", true));
+        assertEquals(DateUtils.parseDateToMillis("2019-05-10", true),
+                     cache.parseDateToMillis("2019-05-10", true));
+        assertEquals(DateUtils.PARSE_FAILED, cache.parseDateToMillis("--05-10", true));
+        assertEquals(DateUtils.PARSE_FAILED, cache.parseDateToMillis("--05-10", true));
+        assertEquals(DateUtils.parseDateToMillis("--05-10", false),
+                     cache.parseDateToMillis("--05-10", false));
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void leastRecentlyUsedStringsAreForgotten() {
+        DateParseCache cache = new DateParseCache(1);
+
+        cache.parseDateToMillis("2019-05-10", false);
+        cache.parseDateToMillis("2019-05-11", false);
+        cache.parseDateToMillis("2019-05-10", false);
+
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void bulkParsingMatchesDateUtils() {
+        String[] in = new String[5000];
+        for (int i = 0; i < in.length; i++) {
+            in[i] = i % 7 == 6 ? "not a date" : "2019-05-1" + i % 7;
+        }
+        long[] expected = new long[in.length];
+        long[] actual = new long[in.length];
+        DateParseCache cache = new DateParseCache(64);
+
+        assertEquals(DateUtils.parseDates(in, true, expected),
+                     cache.parseDates(in, true, actual));
+        for (int i = 0; i < in.length; i++) {
+            assertEquals(expected[i], actual[i]);
+        }
+        assertEquals(in.length, cache.getHitCount() + cache.getMissCount());
+        assertEquals(7, cache.size());
+    }
+}
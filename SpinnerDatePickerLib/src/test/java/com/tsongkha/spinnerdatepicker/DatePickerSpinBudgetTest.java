@@ -0,0 +1,126 @@
+package com.tsongkha.spinnerdatepicker;
+
+import android.widget.NumberPicker;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Drives thousands of spinner steps through a {@link DatePickerDialog} built by
+ * {@link SpinnerDatePickerDialogBuilder} and fails if the average allocation or time per step
+ * goes over budget. Time depends on the machine, so its budget is loose: a millisecond, while a
+ * step measures in tens of microseconds. It catches a step that starts doing I/O or rebuilding
+ * the pickers, not a small slowdown.
+ *
+ * The dialog has no title, as laying out a new title on each step is the framework's cost and
+ * would hide the library's. What is left is mostly Robolectric's shadow of
+ * {@code getSystemService}; the budgets are set just above what that measures, so a step that
+ * creates a Calendar or a formatter goes over them. Lower them when a change makes a step
+ * cheaper.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class DatePickerSpinBudgetTest {
+
+    private static final int WARM_UP_STEPS = 1000;
+    private static final int MEASURED_STEPS = 5000;
+
+    private static final long DAY_STEP_BYTES_BUDGET = 1024;
+    private static final long MONTH_STEP_BYTES_BUDGET = 1024;
+    private static final long YEAR_STEP_BYTES_BUDGET = 1024;
+
+    private static final long STEP_NANOS_BUDGET = 1000000;
+
+    private DatePickerDialog dialog;
+
+    @Before
+    public void setUp() {
+        dialog = PickerTestSupport.show(PickerTestSupport.newBuilder()
+                .defaultDate(1980, 0, 1)
+                .minDate(1900, 0, 1)
+                .maxDate(2100, 0, 1)
+                .showTitle(false));
+    }
+
+    @Test
+    public void daySpinnerStepsStayWithinBudget() {
+        assertWithinBudget("day", spin(R.id.day), DAY_STEP_BYTES_BUDGET);
+    }
+
+    @Test
+    public void monthSpinnerStepsStayWithinBudget() {
+        assertWithinBudget("month", spin(R.id.month), MONTH_STEP_BYTES_BUDGET);
+    }
+
+    @Test
+    public void yearSpinnerStepsStayWithinBudget() {
+        assertWithinBudget("year", spin(R.id.year), YEAR_STEP_BYTES_BUDGET);
+    }
+
+    /**
+     * @return the average bytes allocated and nanoseconds taken per step, in that order
+     */
+    private long[] spin(int spinnerId) {
+        final NumberPicker picker = PickerTestSupport.getSpinner(dialog, spinnerId);
+        step(picker, WARM_UP_STEPS);
+
+        final com.sun.management.ThreadMXBean threads = threadMXBean();
+        final long threadId = Thread.currentThread().getId();
+        final long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        final long nanosBefore = System.nanoTime();
+        step(picker, MEASURED_STEPS);
+        final long nanos = System.nanoTime() - nanosBefore;
+        final long bytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+        return new long[]{bytes / MEASURED_STEPS, nanos / MEASURED_STEPS};
+    }
+
+    /**
+     * Moves the spinner one value at a time the way a long press does, wrapping around where the
+     * spinner wraps and turning back at the ends where it doesn't.
+     */
+    private static void step(NumberPicker picker, int steps) {
+        int direction = 1;
+        for (int i = 0; i < steps; i++) {
+            final int oldVal = picker.getValue();
+            int newVal = oldVal + direction;
+            if (newVal > picker.getMaxValue()) {
+                if (picker.getWrapSelectorWheel()) {
+                    newVal = picker.getMinValue();
+                } else {
+                    direction = -1;
+                    newVal = oldVal - 1;
+                }
+            } else if (newVal < picker.getMinValue()) {
+                direction = 1;
+                newVal = oldVal + 1;
+            }
+            PickerTestSupport.step(picker, newVal);
+        }
+    }
+
+    private static void assertWithinBudget(String spinner, long[] perStep, long bytesBudget) {
+        final String measured = spinner + " step allocated " + perStep[0] + " bytes in "
+                + perStep[1] + " ns";
+        assertTrue(measured + ", budget is " + bytesBudget + " bytes", perStep[0] <= bytesBudget);
+        assertTrue(measured + ", budget is " + STEP_NANOS_BUDGET + " ns",
+                perStep[1] <= STEP_NANOS_BUDGET);
+    }
+
+    private static com.sun.management.ThreadMXBean threadMXBean() {
+        final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue("Allocation counting is not available on this JVM",
+                threads instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(sunThreads.isThreadAllocatedMemorySupported());
+        sunThreads.setThreadAllocatedMemoryEnabled(true);
+        return sunThreads;
+    }
+}
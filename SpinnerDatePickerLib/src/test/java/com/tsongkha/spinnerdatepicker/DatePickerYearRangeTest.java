@@ -0,0 +1,79 @@
+package com.tsongkha.spinnerdatepicker;
+
+import android.widget.NumberPicker;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that a year range of thousands of years is shown as a window around the selected year.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class DatePickerYearRangeTest {
+
+    private DatePickerDialog dialog;
+
+    @Before
+    public void setUp() {
+        dialog = PickerTestSupport.show(PickerTestSupport.newBuilder()
+                .defaultDate(1980, 0, 1)
+                .minDate(1, 0, 1)
+                .maxDate(9999, 11, 31));
+    }
+
+    @Test
+    public void wideRangeIsWindowedAroundSelectedYear() {
+        assertYearRange(1880, 2080);
+        assertEquals(1980, getYearSpinner().getValue());
+    }
+
+    @Test
+    public void windowFollowsSelectedYearAndStopsAtEnds() {
+        DatePicker datePicker = PickerTestSupport.getDatePicker(dialog);
+
+        datePicker.updateDate(5000, 5, 15);
+        assertYearRange(4900, 5100);
+        assertEquals(5000, getYearSpinner().getValue());
+
+        datePicker.updateDate(3, 0, 1);
+        assertYearRange(1, 201);
+
+        datePicker.updateDate(9998, 0, 1);
+        assertYearRange(9799, 9999);
+        assertEquals(9998, getYearSpinner().getValue());
+    }
+
+    @Test
+    public void dateSetInCodeCentresTheWindow() {
+        // 2000 is well inside the window, which a step would leave where it is
+        PickerTestSupport.getDatePicker(dialog).updateDate(2000, 0, 1);
+        assertYearRange(1900, 2100);
+    }
+
+    @Test
+    public void stepsNearTheEdgeMoveTheWindow() {
+        NumberPicker yearSpinner = getYearSpinner();
+        for (int year = 1980; year < 2040; year++) {
+            PickerTestSupport.step(yearSpinner, year + 1);
+        }
+
+        assertEquals(2040, PickerTestSupport.getDatePicker(dialog).getYear());
+        assertEquals(2040, yearSpinner.getValue());
+        assertYearRange(1931, 2131);
+    }
+
+    private void assertYearRange(int min, int max) {
+        assertEquals(min, getYearSpinner().getMinValue());
+        assertEquals(max, getYearSpinner().getMaxValue());
+    }
+
+    private NumberPicker getYearSpinner() {
+        return PickerTestSupport.getSpinner(dialog, R.id.year);
+    }
+}
@@ -0,0 +1,309 @@
+package com.tsongkha.spinnerdatepicker;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks {@link DateUtils#getDayDifferences}, {@link DateUtils#getAges} and
+ * {@link DateUtils#clampDates} on leap days, dates before 1970 and bad arguments, and compares
+ * them with {@link Calendar} on enough random dates to be split across threads.
+ */
+public class DateUtilsArithmeticTest {
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final TimeZone NEW_YORK = TimeZone.getTimeZone("America/New_York");
+
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+
+    // more than DateUtils splits across threads
+    private static final int RANDOM_DATES = 40000;
+
+    // years 1600 to 2400, all Gregorian
+    private static final long RANDOM_MIN = millis(UTC, 1600, Calendar.JANUARY, 1, 0);
+    private static final long RANDOM_MAX = millis(UTC, 2400, Calendar.JANUARY, 1, 0);
+
+    private static final Executor[] EXECUTORS = {ParallelRanges.defaultExecutor(), null};
+
+    @Test
+    public void dayDifferencesCountLeapDays() {
+        assertDayDifference(2, UTC, millis(UTC, 2016, Calendar.FEBRUARY, 28, 12),
+                millis(UTC, 2016, Calendar.MARCH, 1, 12));
+        assertDayDifference(1, UTC, millis(UTC, 2015, Calendar.FEBRUARY, 28, 12),
+                millis(UTC, 2015, Calendar.MARCH, 1, 12));
+        // 1900 and 2100 are not leap years, 2000 is
+        assertDayDifference(1, UTC, millis(UTC, 1900, Calendar.FEBRUARY, 28, 0),
+                millis(UTC, 1900, Calendar.MARCH, 1, 0));
+        assertDayDifference(2, UTC, millis(UTC, 2000, Calendar.FEBRUARY, 28, 0),
+                millis(UTC, 2000, Calendar.MARCH, 1, 0));
+        assertDayDifference(1, UTC, millis(UTC, 2100, Calendar.FEBRUARY, 28, 0),
+                millis(UTC, 2100, Calendar.MARCH, 1, 0));
+        assertDayDifference(366, UTC, millis(UTC, 2016, Calendar.JANUARY, 1, 0),
+                millis(UTC, 2017, Calendar.JANUARY, 1, 0));
+    }
+
+    @Test
+    public void dayDifferencesCountCalendarDaysBeforeTheEpoch() {
+        // two hours apart, but on both sides of midnight
+        assertDayDifference(1, UTC, millis(UTC, 1969, Calendar.DECEMBER, 31, 23),
+                millis(UTC, 1970, Calendar.JANUARY, 1, 1));
+        assertDayDifference(0, UTC, millis(UTC, 1969, Calendar.DECEMBER, 31, 0),
+                millis(UTC, 1969, Calendar.DECEMBER, 31, 23));
+        assertDayDifference(25567, UTC, millis(UTC, 1900, Calendar.JANUARY, 1, 0), 0);
+        // the difference is the same both ways
+        assertDayDifference(25567, UTC, 0, millis(UTC, 1900, Calendar.JANUARY, 1, 0));
+        // 1969-12-31 evening in New York is already 1970 in UTC
+        assertDayDifference(0, NEW_YORK, millis(NEW_YORK, 1969, Calendar.DECEMBER, 31, 1),
+                millis(UTC, 1970, Calendar.JANUARY, 1, 3));
+    }
+
+    @Test
+    public void dayDifferencesMatchTheCalendar() {
+        final Random random = new Random(20);
+        final long[] dates1 = randomDates(random);
+        final long[] dates2 = randomDates(random);
+        final int[] expected = new int[RANDOM_DATES];
+        for (TimeZone timeZone : new TimeZone[]{UTC, NEW_YORK}) {
+            for (int i = 0; i < RANDOM_DATES; i++) {
+                expected[i] = (int) Math.abs(calendarEpochDay(dates2[i], timeZone)
+                        - calendarEpochDay(dates1[i], timeZone));
+            }
+            for (Executor executor : EXECUTORS) {
+                final int[] outDays = new int[RANDOM_DATES];
+                DateUtils.getDayDifferences(dates1, dates2, timeZone, outDays, executor);
+                assertArrayEquals(expected, outDays);
+            }
+        }
+    }
+
+    @Test
+    public void dayDifferencesOnlyWriteTheFirstArraysLength() {
+        final long[] dates1 = {0, MILLIS_PER_DAY};
+        final long[] dates2 = {3 * MILLIS_PER_DAY, 3 * MILLIS_PER_DAY, 7 * MILLIS_PER_DAY};
+        final int[] outDays = {-1, -1, -1, -1};
+        DateUtils.getDayDifferences(dates1, dates2, UTC, outDays);
+        assertArrayEquals(new int[]{3, 2, -1, -1}, outDays);
+    }
+
+    @Test
+    public void dayDifferencesRejectShorterArrays() {
+        final long[] dates = new long[3];
+        try {
+            DateUtils.getDayDifferences(dates, new long[2], UTC, new int[3]);
+            fail("Shorter second dates were accepted");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            DateUtils.getDayDifferences(dates, new long[3], UTC, new int[2]);
+            fail("Shorter output was accepted");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void feb29BirthdaysAreOnMarch1stInOtherYears() {
+        final long birth = millis(UTC, 2000, Calendar.FEBRUARY, 29, 12);
+        assertAge(0, birth, millis(UTC, 2001, Calendar.FEBRUARY, 28, 23));
+        assertAge(1, birth, millis(UTC, 2001, Calendar.MARCH, 1, 0));
+        assertAge(3, birth, millis(UTC, 2004, Calendar.FEBRUARY, 28, 12));
+        assertAge(4, birth, millis(UTC, 2004, Calendar.FEBRUARY, 29, 0));
+        // 2100 is not a leap year
+        assertAge(100, birth, millis(UTC, 2100, Calendar.MARCH, 1, 0));
+        assertAge(99, birth, millis(UTC, 2100, Calendar.FEBRUARY, 28, 0));
+    }
+
+    @Test
+    public void birthdaysOnLeapYearsCountTheSameCalendarDate() {
+        // the day after Feb 28th is a different day of the year in leap years
+        final long birth = millis(UTC, 2015, Calendar.MARCH, 1, 0);
+        assertAge(0, birth, millis(UTC, 2016, Calendar.FEBRUARY, 29, 0));
+        assertAge(1, birth, millis(UTC, 2016, Calendar.MARCH, 1, 0));
+        assertAge(4, millis(UTC, 2016, Calendar.DECEMBER, 31, 0),
+                millis(UTC, 2021, Calendar.JANUARY, 1, 0));
+    }
+
+    @Test
+    public void agesOfBirthsBeforeTheEpoch() {
+        final long birth = millis(UTC, 1960, Calendar.JUNE, 15, 0);
+        assertAge(57, birth, millis(UTC, 2018, Calendar.JUNE, 14, 0));
+        assertAge(58, birth, millis(UTC, 2018, Calendar.JUNE, 15, 0));
+        assertAge(9, birth, millis(UTC, 1969, Calendar.DECEMBER, 31, 23));
+        assertAge(0, millis(UTC, 1899, Calendar.DECEMBER, 31, 0),
+                millis(UTC, 1900, Calendar.JANUARY, 1, 0));
+    }
+
+    @Test
+    public void birthsAfterTheDateHaveNegativeAges() {
+        assertAge(-1, millis(UTC, 2019, Calendar.JANUARY, 1, 0),
+                millis(UTC, 2018, Calendar.JUNE, 1, 0));
+        assertAge(0, millis(UTC, 2018, Calendar.JUNE, 1, 0),
+                millis(UTC, 2018, Calendar.JUNE, 1, 0));
+    }
+
+    @Test
+    public void agesUseTheDatesInTheTimeZone() {
+        // 2000-03-01T02:00Z is still February 29th in New York
+        final long[] birthDates = {millis(UTC, 2000, Calendar.MARCH, 1, 2)};
+        final int[] outYears = new int[1];
+        final long date = millis(NEW_YORK, 2001, Calendar.MARCH, 1, 0);
+        DateUtils.getAges(birthDates, date, NEW_YORK, outYears);
+        assertEquals(1, outYears[0]);
+        DateUtils.getAges(birthDates, millis(NEW_YORK, 2001, Calendar.FEBRUARY, 28, 23),
+                NEW_YORK, outYears);
+        assertEquals(0, outYears[0]);
+    }
+
+    @Test
+    public void agesMatchTheCalendar() {
+        final Random random = new Random(21);
+        final long[] birthDates = randomDates(random);
+        final int[] expected = new int[RANDOM_DATES];
+        for (TimeZone timeZone : new TimeZone[]{UTC, NEW_YORK}) {
+            for (long date : new long[]{0, millis(timeZone, 2016, Calendar.FEBRUARY, 29, 12),
+                    millis(timeZone, 2017, Calendar.FEBRUARY, 28, 12)}) {
+                for (int i = 0; i < RANDOM_DATES; i++) {
+                    expected[i] = calendarAge(birthDates[i], date, timeZone);
+                }
+                for (Executor executor : EXECUTORS) {
+                    final int[] outYears = new int[RANDOM_DATES];
+                    DateUtils.getAges(birthDates, date, timeZone, outYears, executor);
+                    assertArrayEquals(expected, outYears);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void agesRejectAShorterOutput() {
+        try {
+            DateUtils.getAges(new long[3], 0, UTC, new int[2]);
+            fail("Shorter output was accepted");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void datesAreClampedInPlace() {
+        final long min = millis(UTC, 1900, Calendar.JANUARY, 1, 0);
+        final long max = millis(UTC, 2016, Calendar.FEBRUARY, 29, 0);
+        final long[] dates = {Long.MIN_VALUE, min - 1, min, -1, 0, max, max + 1, Long.MAX_VALUE};
+        DateUtils.clampDates(dates, min, max, dates);
+        assertArrayEquals(new long[]{min, min, min, -1, 0, max, max, max}, dates);
+    }
+
+    @Test
+    public void datesAreClampedToASingleDate() {
+        final long[] outDates = new long[3];
+        DateUtils.clampDates(new long[]{-5, 0, 5}, 0, 0, outDates);
+        assertArrayEquals(new long[3], outDates);
+    }
+
+    @Test
+    public void clampedDatesMatchMinAndMax() {
+        final Random random = new Random(22);
+        final long[] dates = randomDates(random);
+        final long min = millis(UTC, 1800, Calendar.JANUARY, 1, 0);
+        final long max = millis(UTC, 2200, Calendar.JANUARY, 1, 0);
+        final long[] expected = new long[RANDOM_DATES];
+        for (int i = 0; i < RANDOM_DATES; i++) {
+            expected[i] = dates[i] < min ? min : dates[i] > max ? max : dates[i];
+        }
+        for (Executor executor : EXECUTORS) {
+            final long[] outDates = new long[RANDOM_DATES + 1];
+            Arrays.fill(outDates, 1);
+            DateUtils.clampDates(dates, min, max, outDates, executor);
+            assertArrayEquals(expected, Arrays.copyOf(outDates, RANDOM_DATES));
+            // past the input is left alone
+            assertEquals(1, outDates[RANDOM_DATES]);
+        }
+    }
+
+    @Test
+    public void clampRejectsMaxBeforeMin() {
+        try {
+            DateUtils.clampDates(new long[1], 1, 0, new long[1]);
+            fail("Max before min was accepted");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void clampRejectsAShorterOutput() {
+        try {
+            DateUtils.clampDates(new long[3], 0, 1, new long[2]);
+            fail("Shorter output was accepted");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private static void assertDayDifference(int expected, TimeZone timeZone, long date1,
+                                            long date2) {
+        final int[] outDays = new int[1];
+        DateUtils.getDayDifferences(new long[]{date1}, new long[]{date2}, timeZone, outDays);
+        assertEquals(expected, outDays[0]);
+    }
+
+    private static void assertAge(int expected, long birthDate, long date) {
+        final int[] outYears = new int[1];
+        DateUtils.getAges(new long[]{birthDate}, date, UTC, outYears);
+        assertEquals(expected, outYears[0]);
+    }
+
+    private static long[] randomDates(Random random) {
+        final long[] dates = new long[RANDOM_DATES];
+        for (int i = 0; i < RANDOM_DATES; i++) {
+            dates[i] = RANDOM_MIN + (long) (random.nextDouble() * (RANDOM_MAX - RANDOM_MIN));
+        }
+        return dates;
+    }
+
+    private static GregorianCalendar newCalendar(TimeZone timeZone) {
+        final GregorianCalendar calendar = new GregorianCalendar(timeZone);
+        // Gregorian before 1582 too, as the packed dates are
+        calendar.setGregorianChange(new Date(Long.MIN_VALUE));
+        calendar.clear();
+        return calendar;
+    }
+
+    private static long millis(TimeZone timeZone, int year, int month, int dayOfMonth,
+                               int hourOfDay) {
+        final GregorianCalendar calendar = newCalendar(timeZone);
+        calendar.set(year, month, dayOfMonth, hourOfDay, 0);
+        return calendar.getTimeInMillis();
+    }
+
+    /**
+     * @return the days from 1970-01-01 to the date of the time in the time zone, by way of the
+     * same date at midnight UTC
+     */
+    private static long calendarEpochDay(long millis, TimeZone timeZone) {
+        final GregorianCalendar local = newCalendar(timeZone);
+        local.setTimeInMillis(millis);
+        final long midnight = millis(UTC, local.get(Calendar.YEAR), local.get(Calendar.MONTH),
+                local.get(Calendar.DAY_OF_MONTH), 0);
+        return Math.round(midnight / (double) MILLIS_PER_DAY);
+    }
+
+    private static int calendarAge(long birthDate, long date, TimeZone timeZone) {
+        final GregorianCalendar birth = newCalendar(timeZone);
+        birth.setTimeInMillis(birthDate);
+        final GregorianCalendar on = newCalendar(timeZone);
+        on.setTimeInMillis(date);
+        final int age = on.get(Calendar.YEAR) - birth.get(Calendar.YEAR);
+        final int birthMonth = birth.get(Calendar.MONTH);
+        final int month = on.get(Calendar.MONTH);
+        final boolean beforeBirthday = month < birthMonth || (month == birthMonth
+                && on.get(Calendar.DAY_OF_MONTH) < birth.get(Calendar.DAY_OF_MONTH));
+        return beforeBirthday ? age - 1 : age;
+    }
+}
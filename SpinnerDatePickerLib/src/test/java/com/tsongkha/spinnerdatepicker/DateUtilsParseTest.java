@@ -0,0 +1,318 @@
+package com.tsongkha.spinnerdatepicker;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Compares {@link DateUtils#parseDate(String, boolean)} and the methods parsing many strings or
+ * slices of text with the SimpleDateFormat table used before {@link IsoDateParser}, for every
+ * accepted pattern and for text that is not quite a date.
+ */
+public class DateUtilsParseTest {
+
+    private static final String[] PATTERNS = {
+            "yyyy-MM-dd",
+            "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'",
+            "yyyy-MM-dd'T'HH:mm'Z'",
+            "yyyyMMdd",
+            "yyyyMMdd'T'HHmmssSSS'Z'",
+            "yyyyMMdd'T'HHmmss'Z'",
+            "yyyyMMdd'T'HHmm'Z'",
+    };
+
+    private static final SimpleDateFormat[] OLD_FORMATS = new SimpleDateFormat[PATTERNS.length];
+
+    private static final SimpleDateFormat OLD_NO_YEAR_FORMAT =
+            new SimpleDateFormat("--MM-dd", Locale.US);
+
+    static {
+        for (int i = 0; i < PATTERNS.length; i++) {
+            OLD_FORMATS[i] = new SimpleDateFormat(PATTERNS[i], Locale.US);
+            OLD_FORMATS[i].setLenient(true);
+            OLD_FORMATS[i].setTimeZone(DateUtils.UTC_TIMEZONE);
+        }
+        OLD_NO_YEAR_FORMAT.setTimeZone(DateUtils.UTC_TIMEZONE);
+    }
+
+    // chars that the mutated strings are made of, including the ones the scanner leaves to the
+    // SimpleDateFormat table
+    private static final String NOISE = "0123456789-TZ:.+ ,E\t٣x";
+
+    @Test
+    public void everyPatternMatchesTheFormats() {
+        Random random = new Random(2);
+        for (String pattern : PATTERNS) {
+            SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.US);
+            format.setTimeZone(DateUtils.UTC_TIMEZONE);
+            for (int i = 0; i < 2000; i++) {
+                // years from 1600 on are scanned, earlier ones go through the formats
+                long millis = -15000000000000L + (long) (random.nextDouble() * 270000000000000L);
+                assertSameAsFormats(format.format(new Date(millis)));
+            }
+        }
+        Calendar calendar = Calendar.getInstance(DateUtils.UTC_TIMEZONE, Locale.US);
+        for (int day = 0; day < 366; day++) {
+            calendar.clear();
+            calendar.set(2020, Calendar.JANUARY, 1 + day);
+            assertSameAsFormats(String.format(Locale.US, "--%02d-%02d",
+                                              calendar.get(Calendar.MONTH) + 1,
+                                              calendar.get(Calendar.DAY_OF_MONTH)));
+        }
+    }
+
+    @Test
+    public void outOfRangeFieldsRollOver() {
+        String[] dates = {"2018-13-01", "2018-00-00", "2018-02-30", "2019-02-29", "2020-02-29",
+                "2018-12-32", "2018-01-01T24:60:60.1000Z", "2018-01-01T99:99Z", "20181301",
+                "20180230T250000Z", "--13-01", "--00-00", "--02-30", "--02-29", "--12-32",
+                "9999-12-31", "99999-12-31", "100000-01-01", "1600-01-01", "1599-12-31",
+                "0001-01-01", "1582-10-10", "2018-001-0001", "2018-1-1", "2018-01-01T1:2Z"};
+        for (String date : dates) {
+            assertSameAsFormats(date);
+        }
+    }
+
+    @Test
+    public void malformedTextMatchesTheFormats() {
+        String[] texts = {"abc", "2018", "2018-", "2018-01", "2018-01-", "2018-01-01T",
+                "2018-01-01T12", "2018-01-01T12:00", "2018-01-01 ", " 2018-01-01",
+                "2018-01-01Z", "2018/01/01", "+2018-01-01", "-2018-01-01", "2018--01-01",
+                "2018-+1-01", "2018-01-01T12:00:00Z", "2018-01-01T12:00:00.000", "20180101T",
+                "20180101T1200", "201801", "2018010", "201801011", "2018,01-01", "2E3-01-01",
+                "٢٠١٨-٠١-٠١", "2018-01-01٣",
+                "12345678901234567890-01-01", "--", "--01", "--01-", "---01-01", "--1-1",
+                "--01-01T00:00:00.000Z", "-", "Z", "T", "NaN-01-01", "2018-01-01T12:00Z ",
+                "0000000000000000000000000000000000000000000000000000000000002018-01-01"};
+        for (String text : texts) {
+            assertSameAsFormats(text);
+        }
+    }
+
+    @Test
+    public void mutatedDatesMatchTheFormats() {
+        Random random = new Random(3);
+        SimpleDateFormat[] formats = new SimpleDateFormat[PATTERNS.length];
+        for (int i = 0; i < PATTERNS.length; i++) {
+            formats[i] = new SimpleDateFormat(PATTERNS[i], Locale.US);
+            formats[i].setTimeZone(DateUtils.UTC_TIMEZONE);
+        }
+        for (int i = 0; i < 50000; i++) {
+            long millis = (long) (random.nextDouble() * 4000000000000L);
+            StringBuilder text = new StringBuilder(
+                    formats[random.nextInt(formats.length)].format(new Date(millis)));
+            if (random.nextInt(8) == 0) {
+                text.replace(0, text.indexOf("-") > 0 ? text.indexOf("-") : 4, "-");
+            }
+            for (int edits = random.nextInt(3); edits > 0; edits--) {
+                int pos = random.nextInt(text.length() + 1);
+                char c = NOISE.charAt(random.nextInt(NOISE.length()));
+                switch (random.nextInt(3)) {
+                    case 0:
+                        text.insert(pos, c);
+                        break;
+                    case 1:
+                        if (pos < text.length()) {
+                            text.deleteCharAt(pos);
+                        }
+                        break;
+                    default:
+                        if (pos < text.length()) {
+                            text.setCharAt(pos, c);
+                        }
+                        break;
+                }
+            }
+            assertSameAsFormats(text.toString());
+        }
+    }
+
+    @Test
+    public void emptyTextIsNotADate() {
+        // the formats match the empty string without a date, the old code then threw a
+        // NullPointerException
+        assertNull(DateUtils.parseDate("", true));
+        assertNull(DateUtils.parseDate("", false));
+        assertEquals(DateUtils.PARSE_FAILED, DateUtils.parseDateToMillis("", true));
+        assertEquals(DateUtils.PARSE_FAILED, DateUtils.parseDateToMillis("", false));
+        assertEquals(DateUtils.PARSE_FAILED, DateUtils.parseDateToMillis(null, false));
+    }
+
+    @Test
+    public void parseDatesMatchesTheFormats() {
+        final List<String> texts = sampleTexts();
+        // more strings than one thread parses, with nulls and the empty string in between
+        final String[] in = new String[3 * 2048 + 7];
+        final long[] expected = new long[in.length];
+        int expectedCount = 0;
+        for (int i = 0; i < in.length; i++) {
+            in[i] = i % 97 == 0 ? null : texts.get(i % texts.size());
+            final Long millis = in[i] == null || in[i].isEmpty()
+                    ? null : oldParseDate(in[i], false);
+            expected[i] = millis == null ? DateUtils.PARSE_FAILED : millis;
+            if (millis != null) {
+                expectedCount++;
+            }
+        }
+
+        long[] out = new long[in.length];
+        assertEquals(expectedCount, DateUtils.parseDates(in, false, out));
+        assertArrayEquals(expected, out);
+
+        out = new long[in.length + 1];
+        assertEquals(expectedCount, DateUtils.parseDates(in, false, out, null));
+        assertArrayEquals(expected, Arrays.copyOf(out, in.length));
+
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            out = new long[in.length];
+            assertEquals(expectedCount, DateUtils.parseDates(in, false, out, executor));
+            assertArrayEquals(expected, out);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseDatesNeedsAnOutputAsLongAsTheInput() {
+        DateUtils.parseDates(new String[]{"2018-01-01", "2018-01-02"}, true, new long[1]);
+    }
+
+    @Test
+    public void slicesMatchTheFormats() {
+        final Charset utf8 = Charset.forName("UTF-8");
+        // digits and separators around the slice, so that reading past it changes the result
+        final String prefix = "2019-";
+        final String suffix = "01T00:00Z";
+        for (String text : sampleTexts()) {
+            for (boolean mustContainYear : new boolean[]{true, false}) {
+                final Long old = text.isEmpty() ? null : oldParseDate(text, mustContainYear);
+                final long expected = old == null ? DateUtils.PARSE_FAILED : old;
+                final String message = "\"" + text + "\", mustContainYear " + mustContainYear;
+                final String padded = prefix + text + suffix;
+                final int start = prefix.length();
+                final int end = start + text.length();
+
+                assertEquals(message, expected, DateUtils.parseDateToMillis(
+                        new StringBuilder(padded), start, end, mustContainYear));
+                assertEquals(message, expected, DateUtils.parseDateToMillis(
+                        padded.toCharArray(), start, end, mustContainYear));
+
+                final byte[] bytes = padded.getBytes(utf8);
+                final int byteStart = prefix.getBytes(utf8).length;
+                final int byteEnd = byteStart + text.getBytes(utf8).length;
+                final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+                direct.put(bytes).position(3);
+                for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.wrap(bytes), direct,
+                        ByteBuffer.wrap(bytes).asReadOnlyBuffer()}) {
+                    final int position = buffer.position();
+                    assertEquals(message, expected, DateUtils.parseDateToMillis(
+                            buffer, byteStart, byteEnd, mustContainYear));
+                    assertEquals(position, buffer.position());
+                    assertEquals(bytes.length, buffer.limit());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void slicesOutsideTheTextAreRejected() {
+        final String text = "2018-01-01";
+        final ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(Charset.forName("UTF-8")));
+        buffer.limit(8);
+        final int[][] ranges = {{-1, 4}, {0, 11}, {5, 4}};
+        for (int[] range : ranges) {
+            try {
+                DateUtils.parseDateToMillis(text, range[0], range[1], true);
+                fail("CharSequence " + Arrays.toString(range));
+            } catch (IndexOutOfBoundsException expected) {
+            }
+            try {
+                DateUtils.parseDateToMillis(text.toCharArray(), range[0], range[1], true);
+                fail("char[] " + Arrays.toString(range));
+            } catch (IndexOutOfBoundsException expected) {
+            }
+        }
+        try {
+            // the bytes after the limit are not part of the buffer
+            DateUtils.parseDateToMillis(buffer, 0, 10, true);
+            fail("ByteBuffer past its limit");
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        assertEquals(DateUtils.PARSE_FAILED, DateUtils.parseDateToMillis(text, 4, 4, false));
+    }
+
+    private static void assertSameAsFormats(String text) {
+        for (boolean mustContainYear : new boolean[]{true, false}) {
+            Long expected = oldParseDate(text, mustContainYear);
+            Calendar actual = DateUtils.parseDate(text, mustContainYear);
+            String message = "\"" + text + "\", mustContainYear " + mustContainYear;
+            assertEquals(message, expected, actual == null ? null : actual.getTimeInMillis());
+            assertEquals(message, expected == null ? DateUtils.PARSE_FAILED : expected,
+                         DateUtils.parseDateToMillis(text, mustContainYear));
+        }
+    }
+
+    /**
+     * The parsing of {@link DateUtils#parseDate(String, boolean)} before {@link IsoDateParser},
+     * returning the time in milliseconds or null. Not used for the empty string, on which it
+     * threw.
+     */
+    static Long oldParseDate(String string, boolean mustContainYear) {
+        ParsePosition parsePosition = new ParsePosition(0);
+        Date date;
+        if (!mustContainYear) {
+            if (DateUtils.NO_YEAR_DATE_FEB29TH.equals(string)) {
+                Calendar calendar = Calendar.getInstance(DateUtils.UTC_TIMEZONE, Locale.US);
+                calendar.clear();
+                calendar.set(0, Calendar.FEBRUARY, 29);
+                return calendar.getTimeInMillis();
+            }
+            date = OLD_NO_YEAR_FORMAT.parse(string, parsePosition);
+            if (parsePosition.getIndex() == string.length()) {
+                Calendar calendar = Calendar.getInstance(DateUtils.UTC_TIMEZONE, Locale.US);
+                calendar.setTime(date);
+                calendar.set(Calendar.YEAR, 0);
+                return calendar.getTimeInMillis();
+            }
+        }
+        for (SimpleDateFormat format : OLD_FORMATS) {
+            parsePosition.setIndex(0);
+            date = format.parse(string, parsePosition);
+            if (parsePosition.getIndex() == string.length()) {
+                return date.getTime();
+            }
+        }
+        return null;
+    }
+
+    // dates in each pattern, with and without a year, and text that is not a date
+    static List<String> sampleTexts() {
+        final List<String> texts = new ArrayList<>();
+        final Random random = new Random(4);
+        for (int i = 0; i < 64; i++) {
+            final SimpleDateFormat format = OLD_FORMATS[i % OLD_FORMATS.length];
+            texts.add(format.format(new Date((long) (random.nextDouble() * 4000000000000L))));
+        }
+        texts.addAll(Arrays.asList("--02-29", "--11-05", "0150-01-01", "2018-02-30",
+                                   "٢٠١٨-٠١-٠١", "2018-01-01 ", "not a date", ""));
+        return texts;
+    }
+}
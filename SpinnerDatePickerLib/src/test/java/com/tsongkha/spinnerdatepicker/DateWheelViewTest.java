@@ -0,0 +1,131 @@
+package com.tsongkha.spinnerdatepicker;
+
+import android.app.Activity;
+import android.content.pm.ApplicationInfo;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Steps the columns of a {@link DateWheelView} and checks that the {@link DatePicker} behind it
+ * rolls and clamps the date the same way as with NumberPickers.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class DateWheelViewTest {
+
+    private Activity activity;
+
+    @Before
+    public void setUp() {
+        activity = PickerTestSupport.newActivity();
+    }
+
+    @Test
+    public void dayStepWrapsIntoNextMonth() {
+        DatePickerDialog dialog = show(1980, 0, 31);
+        DateWheelView wheel = getWheel(dialog);
+
+        assertTrue(wheel.changeValueByOne(DateWheelView.DAY, true));
+
+        DatePicker datePicker = PickerTestSupport.getDatePicker(dialog);
+        assertEquals(1980, datePicker.getYear());
+        assertEquals(1, datePicker.getMonth());
+        assertEquals(1, datePicker.getDayOfMonth());
+        assertEquals(1, wheel.getValue(DateWheelView.MONTH));
+        assertEquals(1, wheel.getValue(DateWheelView.DAY));
+    }
+
+    @Test
+    public void yearStepKeepsFebruary29thValid() {
+        DatePickerDialog dialog = show(1980, 1, 29);
+        DateWheelView wheel = getWheel(dialog);
+
+        assertTrue(wheel.changeValueByOne(DateWheelView.YEAR, true));
+
+        DatePicker datePicker = PickerTestSupport.getDatePicker(dialog);
+        assertEquals(1981, datePicker.getYear());
+        assertEquals(2, datePicker.getMonth());
+        assertEquals(1, datePicker.getDayOfMonth());
+    }
+
+    @Test
+    public void columnsStopAtMinDate() {
+        DatePickerDialog dialog = show(1900, 0, 1);
+        DateWheelView wheel = getWheel(dialog);
+
+        assertFalse(wheel.changeValueByOne(DateWheelView.DAY, false));
+        assertFalse(wheel.changeValueByOne(DateWheelView.MONTH, false));
+        assertFalse(wheel.changeValueByOne(DateWheelView.YEAR, false));
+        assertEquals(1900, PickerTestSupport.getDatePicker(dialog).getYear());
+    }
+
+    @Test
+    public void columnsAreMirroredRightToLeft() {
+        DateWheelView wheel = getWheel(show(1980, 0, 1));
+        // the app has to support right to left layouts for them to be resolved
+        activity.getApplicationInfo().flags |= ApplicationInfo.FLAG_SUPPORTS_RTL;
+
+        wheel.setLayoutDirection(View.LAYOUT_DIRECTION_LTR);
+        layOut(wheel);
+        int left = getFirstColumn(wheel);
+        int right = getLastColumn(wheel);
+        assertNotEquals(left, right);
+
+        wheel.setLayoutDirection(View.LAYOUT_DIRECTION_RTL);
+        layOut(wheel);
+        assertEquals(right, getFirstColumn(wheel));
+        assertEquals(left, getLastColumn(wheel));
+    }
+
+    @Test
+    @Config(sdk = 16)
+    public void columnsAreLaidOutBeforeLayoutDirections() {
+        DatePicker datePicker = DatePickerDialog.createDatePicker(
+                activity, 0, false, true, null, PackedDates.pack(1900, 0, 1),
+                PackedDates.pack(2100, 0, 1));
+        DateWheelView wheel = (DateWheelView) ((ViewGroup) datePicker.findViewById(R.id.parent))
+                .getChildAt(0);
+
+        layOut(wheel);
+        assertNotEquals(DateWheelView.NO_COLUMN, getFirstColumn(wheel));
+        assertNotEquals(DateWheelView.NO_COLUMN, getLastColumn(wheel));
+        assertNotEquals(getFirstColumn(wheel), getLastColumn(wheel));
+    }
+
+    private DatePickerDialog show(int year, int month, int day) {
+        return PickerTestSupport.show(PickerTestSupport.newBuilder(activity)
+                .wheelRenderer(true)
+                .defaultDate(year, month, day)
+                .minDate(1900, 0, 1)
+                .maxDate(2100, 0, 1));
+    }
+
+    private static void layOut(DateWheelView wheel) {
+        wheel.measure(View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED),
+                      View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+        wheel.layout(0, 0, wheel.getMeasuredWidth(), wheel.getMeasuredHeight());
+    }
+
+    private static int getFirstColumn(DateWheelView wheel) {
+        return wheel.getColumnAt(wheel.getPaddingLeft());
+    }
+
+    private static int getLastColumn(DateWheelView wheel) {
+        return wheel.getColumnAt(wheel.getMeasuredWidth() - wheel.getPaddingRight() - 1);
+    }
+
+    private static DateWheelView getWheel(DatePickerDialog dialog) {
+        return (DateWheelView) ((ViewGroup) dialog.findViewById(R.id.parent)).getChildAt(0);
+    }
+}
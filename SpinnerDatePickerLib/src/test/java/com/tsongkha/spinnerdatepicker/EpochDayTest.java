@@ -0,0 +1,147 @@
+package com.tsongkha.spinnerdatepicker;
+
+import android.content.DialogInterface;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks the epoch day setters of {@link SpinnerDatePickerDialogBuilder} and the date that
+ * reaches a {@link DatePickerDialog.OnEpochDaySetListener}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class EpochDayTest {
+
+    // 0000-01-01, 1969-12-31 and 2018-01-01
+    private static final long YEAR_0 = -719528L;
+    private static final long DAY_BEFORE_EPOCH = -1L;
+    private static final long NEW_YEAR_2018 = 17532L;
+
+    private final List<Long> setEpochDays = new ArrayList<>();
+
+    private final DatePickerDialog.OnEpochDaySetListener listener =
+            new DatePickerDialog.OnEpochDaySetListener() {
+                @Override
+                public void onDateSet(DatePicker view, long epochDay) {
+                    setEpochDays.add(epochDay);
+                }
+            };
+
+    @Test
+    public void epochDaysSetTheDates() {
+        final DatePickerDialog dialog = PickerTestSupport.show(PickerTestSupport.newBuilder()
+                .minEpochDay(YEAR_0)
+                .maxEpochDay(NEW_YEAR_2018)
+                .defaultEpochDay(DAY_BEFORE_EPOCH));
+        final DatePicker datePicker = PickerTestSupport.getDatePicker(dialog);
+
+        assertDate(datePicker, 1969, 11, 31);
+        assertEquals(DAY_BEFORE_EPOCH, datePicker.getEpochDay());
+
+        datePicker.updateDate(0, 0, 1);
+        assertEquals(YEAR_0, datePicker.getEpochDay());
+        // out of range dates are clamped to the min and max epoch days
+        datePicker.updateDate(2019, 0, 1);
+        assertDate(datePicker, 2018, 0, 1);
+    }
+
+    @Test
+    public void epochDaysOutsideThePackedYearsAreRejected() {
+        final long[] rejected = {
+                PackedDates.MIN_EPOCH_DAY - 1,
+                PackedDates.MAX_EPOCH_DAY + 1,
+                Long.MIN_VALUE,
+                Long.MAX_VALUE
+        };
+        for (long epochDay : rejected) {
+            final SpinnerDatePickerDialogBuilder builder = new SpinnerDatePickerDialogBuilder();
+            try {
+                builder.minEpochDay(epochDay);
+                fail("Min epoch day " + epochDay + " was accepted");
+            } catch (IllegalArgumentException expected) {
+            }
+            try {
+                builder.maxEpochDay(epochDay);
+                fail("Max epoch day " + epochDay + " was accepted");
+            } catch (IllegalArgumentException expected) {
+            }
+            try {
+                builder.defaultEpochDay(epochDay);
+                fail("Default epoch day " + epochDay + " was accepted");
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void firstAndLastPackedDaysAreAccepted() {
+        new SpinnerDatePickerDialogBuilder()
+                .minEpochDay(PackedDates.MIN_EPOCH_DAY)
+                .maxEpochDay(PackedDates.MAX_EPOCH_DAY)
+                .defaultEpochDay(PackedDates.MAX_EPOCH_DAY);
+        assertEquals(YEAR_0, PackedDates.MIN_EPOCH_DAY);
+        assertEquals(PackedDates.pack(PackedDates.MAX_YEAR, 11, 31),
+                PackedDates.fromEpochDay(PackedDates.MAX_EPOCH_DAY));
+    }
+
+    @Test
+    public void setDateReachesTheEpochDayListener() {
+        final DatePickerDialog dialog = PickerTestSupport.show(PickerTestSupport.newBuilder()
+                .defaultEpochDay(NEW_YEAR_2018)
+                .epochDayCallback(listener));
+        final DatePicker datePicker = PickerTestSupport.getDatePicker(dialog);
+
+        PickerTestSupport.step(PickerTestSupport.getSpinner(dialog, R.id.day), 2);
+        dialog.onClick(dialog, DialogInterface.BUTTON_POSITIVE);
+
+        assertEquals(1, setEpochDays.size());
+        assertEquals(NEW_YEAR_2018 + 1, (long) setEpochDays.get(0));
+        assertEquals(datePicker.getEpochDay(), (long) setEpochDays.get(0));
+    }
+
+    @Test
+    public void datesBeforeTheEpochReachTheListenerAsNegativeDays() {
+        final List<int[]> setDates = new ArrayList<>();
+        final DatePickerDialog dialog = PickerTestSupport.show(PickerTestSupport.newBuilder()
+                .defaultDate(1969, 11, 31)
+                .callback(new DatePickerDialog.OnDateSetListener() {
+                    @Override
+                    public void onDateSet(DatePicker view, int year, int monthOfYear, int dayOfMonth) {
+                        setDates.add(new int[]{year, monthOfYear, dayOfMonth});
+                    }
+                })
+                .epochDayCallback(listener));
+
+        dialog.onClick(dialog, DialogInterface.BUTTON_POSITIVE);
+
+        assertEquals(1, setDates.size());
+        assertEquals(1969, setDates.get(0)[0]);
+        assertEquals(DAY_BEFORE_EPOCH, (long) setEpochDays.get(0));
+    }
+
+    @Test
+    public void cancelDoesNotReachTheEpochDayListener() {
+        final DatePickerDialog dialog = PickerTestSupport.show(PickerTestSupport.newBuilder()
+                .defaultEpochDay(NEW_YEAR_2018)
+                .epochDayCallback(listener));
+
+        dialog.onClick(dialog, DialogInterface.BUTTON_NEGATIVE);
+
+        assertEquals(0, setEpochDays.size());
+    }
+
+    private static void assertDate(DatePicker datePicker, int year, int month, int dayOfMonth) {
+        assertEquals(year, datePicker.getYear());
+        assertEquals(month, datePicker.getMonth());
+        assertEquals(dayOfMonth, datePicker.getDayOfMonth());
+    }
+}
@@ -0,0 +1,70 @@
+package com.tsongkha.spinnerdatepicker;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that the writer matches the {@link CommonDateUtils} formats for each shape and target.
+ */
+public class IsoDateWriterTest {
+
+    private static final long MILLIS = 1546300799999L; // 2018-12-31T23:59:59.999Z
+
+    @Test
+    public void shapesMatchCommonDateUtilsFormats() {
+        assertSameAsFormat(IsoDateWriter.FULL_DATE, CommonDateUtils.FULL_DATE_FORMAT);
+        assertSameAsFormat(IsoDateWriter.DATE_AND_TIME, CommonDateUtils.DATE_AND_TIME_FORMAT);
+        assertSameAsFormat(IsoDateWriter.NO_YEAR_DATE, CommonDateUtils.NO_YEAR_DATE_FORMAT);
+        assertSameAsFormat(IsoDateWriter.NO_YEAR_DATE_AND_TIME,
+                           CommonDateUtils.NO_YEAR_DATE_AND_TIME_FORMAT);
+    }
+
+    @Test
+    public void targetsGetTheSameChars() {
+        char[] chars = new char[IsoDateWriter.MAX_LENGTH + 2];
+        int length = IsoDateWriter.write(IsoDateWriter.DATE_AND_TIME, 2018, Calendar.DECEMBER, 31,
+                                         23, 59, 59, 999, chars, 2);
+        StringBuilder builder = new StringBuilder("x");
+        IsoDateWriter.write(IsoDateWriter.DATE_AND_TIME, 2018, Calendar.DECEMBER, 31, 23, 59, 59,
+                            999, builder);
+        ByteBuffer buffer = ByteBuffer.allocate(IsoDateWriter.MAX_LENGTH);
+        IsoDateWriter.write(IsoDateWriter.DATE_AND_TIME, 2018, Calendar.DECEMBER, 31, 23, 59, 59,
+                            999, buffer);
+
+        assertEquals("2018-12-31T23:59:59.999Z", new String(chars, 2, length));
+        assertEquals("x2018-12-31T23:59:59.999Z", builder.toString());
+        assertEquals(length, buffer.position());
+        assertEquals("2018-12-31T23:59:59.999Z", new String(buffer.array(), 0, length));
+    }
+
+    @Test
+    public void yearsArePadded() {
+        StringBuilder builder = new StringBuilder();
+        IsoDateWriter.writeEpochDay(IsoDateWriter.FULL_DATE,
+                                    PackedDates.toEpochDay(5, Calendar.JANUARY, 2), builder);
+        builder.append(' ');
+        IsoDateWriter.write(IsoDateWriter.FULL_DATE, 12345, Calendar.MARCH, 4, 0, 0, 0, 0,
+                            builder);
+
+        assertEquals("0005-01-02 12345-03-04", builder.toString());
+    }
+
+    private static void assertSameAsFormat(int shape, SimpleDateFormat format) {
+        final SimpleDateFormat utcFormat;
+        synchronized (format) {
+            utcFormat = (SimpleDateFormat) format.clone();
+        }
+        utcFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        final String expected = utcFormat.format(new Date(MILLIS));
+        StringBuilder builder = new StringBuilder();
+        IsoDateWriter.writeEpochMillis(shape, MILLIS, builder);
+        assertEquals(expected, builder.toString());
+    }
+}
@@ -0,0 +1,198 @@
+package com.tsongkha.spinnerdatepicker;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that locales appended to the table are read back, only by the same OS build, and that
+ * appending leaves what is already in the file alone.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class LocaleDataTableTest {
+
+    private static final String FINGERPRINT = "vendor/product/device:9/PQ1A/1:user/release-keys";
+
+    private static final String[] MONTHS = {"janv.", "févr.", "mars", "avr.", "mai", "juin",
+            "juil.", "août", "sept.", "oct.", "nov.", "déc."};
+
+    private static final PickerLocaleData FRENCH = new PickerLocaleData(
+            Locale.FRANCE, 12, false, MONTHS, new char[]{'d', 'M', 'y'});
+
+    private static final PickerLocaleData JAPANESE = new PickerLocaleData(
+            Locale.JAPAN, 12, true, numericMonths(), null);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void appendedLocalesAreReadBack() throws Exception {
+        final File file = newFile();
+        LocaleDataTable.append(file, FINGERPRINT, entries(FRENCH, Locale.FRANCE));
+        LocaleDataTable.append(file, FINGERPRINT, entries(JAPANESE, Locale.JAPAN));
+
+        final LocaleDataTable table = LocaleDataTable.open(file, FINGERPRINT);
+        final PickerLocaleData french = table.read(Locale.FRANCE);
+        assertEquals(12, french.numberOfMonths);
+        assertEquals(false, french.numericMonths);
+        assertArrayEquals(MONTHS, french.getShortMonths());
+        assertArrayEquals(new char[]{'d', 'M', 'y'}, french.getDateFormatOrder());
+        final PickerLocaleData japanese = table.read(Locale.JAPAN);
+        assertTrue(japanese.numericMonths);
+        assertArrayEquals(numericMonths(), japanese.getShortMonths());
+        assertNull(japanese.getDateFormatOrder());
+        assertNull(table.read(Locale.GERMANY));
+        assertTrue(table.contains(LocaleDataTable.keyOf(Locale.FRANCE)));
+        assertFalse(table.contains(LocaleDataTable.keyOf(Locale.GERMANY)));
+    }
+
+    @Test
+    public void otherBuildsAndMissingFilesGiveAnEmptyTable() throws Exception {
+        final File file = newFile();
+        assertNull(LocaleDataTable.open(file, FINGERPRINT).read(Locale.FRANCE));
+
+        LocaleDataTable.append(file, FINGERPRINT, entries(FRENCH, Locale.FRANCE));
+        assertNull(LocaleDataTable.open(file, FINGERPRINT + "2").read(Locale.FRANCE));
+
+        // another build starts the file again
+        LocaleDataTable.append(file, FINGERPRINT + "2", entries(JAPANESE, Locale.JAPAN));
+        assertNull(LocaleDataTable.open(file, FINGERPRINT).read(Locale.JAPAN));
+        final LocaleDataTable table = LocaleDataTable.open(file, FINGERPRINT + "2");
+        assertNull(table.read(Locale.FRANCE));
+        assertArrayEquals(numericMonths(), table.read(Locale.JAPAN).getShortMonths());
+    }
+
+    @Test
+    public void appendingLeavesTheFileAlone() throws Exception {
+        final File file = newFile();
+        LocaleDataTable.append(file, FINGERPRINT, entries(FRENCH, Locale.FRANCE));
+        final byte[] withFrench = Files.readAllBytes(file.toPath());
+
+        LocaleDataTable.append(file, FINGERPRINT, entries(JAPANESE, Locale.JAPAN));
+        final byte[] withJapanese = Files.readAllBytes(file.toPath());
+        assertTrue(withJapanese.length > withFrench.length);
+        assertArrayEquals(withFrench, Arrays.copyOf(withJapanese, withFrench.length));
+
+        // locales the file has are not written again
+        final Map<String, PickerLocaleData> both = entries(FRENCH, Locale.FRANCE);
+        both.putAll(entries(JAPANESE, Locale.JAPAN));
+        LocaleDataTable.append(file, FINGERPRINT, both);
+        assertArrayEquals(withJapanese, Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void recordCutShortIsDroppedByTheNextAppend() throws Exception {
+        final File file = newFile();
+        LocaleDataTable.append(file, FINGERPRINT, entries(FRENCH, Locale.FRANCE));
+        LocaleDataTable.append(file, FINGERPRINT, entries(JAPANESE, Locale.JAPAN));
+        final byte[] whole = Files.readAllBytes(file.toPath());
+        // a process that died while appending
+        final RandomAccessFile output = new RandomAccessFile(file, "rw");
+        try {
+            output.setLength(whole.length - 3);
+        } finally {
+            output.close();
+        }
+
+        LocaleDataTable table = LocaleDataTable.open(file, FINGERPRINT);
+        assertArrayEquals(MONTHS, table.read(Locale.FRANCE).getShortMonths());
+        assertNull(table.read(Locale.JAPAN));
+
+        LocaleDataTable.append(file, FINGERPRINT, entries(JAPANESE, Locale.JAPAN));
+        assertArrayEquals(whole, Files.readAllBytes(file.toPath()));
+        table = LocaleDataTable.open(file, FINGERPRINT);
+        assertArrayEquals(MONTHS, table.read(Locale.FRANCE).getShortMonths());
+        assertArrayEquals(numericMonths(), table.read(Locale.JAPAN).getShortMonths());
+    }
+
+    @Test
+    public void scriptsAndExtensionsAreKeptApart() throws Exception {
+        final Locale[] locales = {
+                Locale.forLanguageTag("zh-TW"),
+                Locale.forLanguageTag("zh-Hant-TW"),
+                Locale.forLanguageTag("ja-JP"),
+                Locale.forLanguageTag("ja-JP-u-ca-japanese"),
+                Locale.forLanguageTag("sr-Latn-RS"),
+                new Locale("ja", "JP", "JP"),
+        };
+        final Map<String, PickerLocaleData> entries = new HashMap<>();
+        for (int i = 0; i < locales.length; i++) {
+            entries.putAll(entries(new PickerLocaleData(locales[i], 12, false,
+                    months(String.valueOf(i)), null), locales[i]));
+        }
+        assertEquals(locales.length, entries.size());
+        final File file = newFile();
+        LocaleDataTable.append(file, FINGERPRINT, entries);
+
+        final LocaleDataTable table = LocaleDataTable.open(file, FINGERPRINT);
+        for (int i = 0; i < locales.length; i++) {
+            assertArrayEquals(months(String.valueOf(i)), table.read(locales[i]).getShortMonths());
+        }
+        assertNull(table.read(Locale.forLanguageTag("zh-Hans-TW")));
+    }
+
+    @Test
+    public void localesTheirTagDoesNotGiveBackAreNotStored() {
+        // the tag drops the malformed country
+        final Locale malformed = new Locale("en", "ABCD");
+        assertNull(LocaleDataTable.keyOf(malformed));
+        assertEquals("en-US", LocaleDataTable.keyOf(Locale.US));
+    }
+
+    @Test
+    @Config(sdk = 16)
+    public void localesAreKeyedByTheirFieldsBeforeLollipop() throws Exception {
+        assertEquals("fr_FR_", LocaleDataTable.keyOf(Locale.FRANCE));
+        assertEquals("ja_JP_JP", LocaleDataTable.keyOf(new Locale("ja", "JP", "JP")));
+        assertEquals("_US_", LocaleDataTable.keyOf(new Locale("", "US")));
+
+        final File file = newFile();
+        LocaleDataTable.append(file, FINGERPRINT, entries(FRENCH, Locale.FRANCE));
+        assertArrayEquals(MONTHS,
+                LocaleDataTable.open(file, FINGERPRINT).read(Locale.FRANCE).getShortMonths());
+    }
+
+    private File newFile() {
+        return new File(folder.getRoot(), LocaleDataTable.FILE_NAME);
+    }
+
+    private static Map<String, PickerLocaleData> entries(PickerLocaleData data, Locale locale) {
+        final Map<String, PickerLocaleData> entries = new HashMap<>();
+        entries.put(LocaleDataTable.keyOf(locale), data);
+        return entries;
+    }
+
+    private static String[] numericMonths() {
+        final String[] months = new String[12];
+        for (int i = 0; i < months.length; i++) {
+            months[i] = String.valueOf(i + 1);
+        }
+        return months;
+    }
+
+    private static String[] months(String prefix) {
+        final String[] months = numericMonths();
+        for (int i = 0; i < months.length; i++) {
+            months[i] = prefix + months[i];
+        }
+        return months;
+    }
+}
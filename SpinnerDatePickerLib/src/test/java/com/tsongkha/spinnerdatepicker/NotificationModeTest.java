@@ -0,0 +1,116 @@
+package com.tsongkha.spinnerdatepicker;
+
+import android.widget.NumberPicker;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.util.Scheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks when the date changes made with the spinners reach the listener in each of the
+ * {@link DatePicker#setNotificationMode notification modes}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class NotificationModeTest {
+
+    // the days of the month that reached the listener, in order
+    private final List<Integer> notifiedDays = new ArrayList<>();
+
+    private final OnDateChangedListener listener = new OnDateChangedListener() {
+        @Override
+        public void onDateChanged(DatePicker view, int year, int monthOfYear, int dayOfMonth) {
+            notifiedDays.add(dayOfMonth);
+        }
+    };
+
+    private Scheduler scheduler;
+    private DatePickerDialog dialog;
+    private NumberPicker daySpinner;
+
+    @Before
+    public void setUp() {
+        scheduler = Robolectric.getForegroundThreadScheduler();
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.unPause();
+    }
+
+    @Test
+    public void immediateModeNotifiesEveryStep() {
+        show(DatePicker.NOTIFY_IMMEDIATE);
+        stepDays(2, 0);
+
+        assertEquals(Arrays.asList(2, 3, 4, 5, 6), notifiedDays);
+    }
+
+    @Test
+    public void frameCoalescedModeNotifiesTheLastStepOfAFrame() {
+        show(DatePicker.NOTIFY_FRAME_COALESCED);
+        stepDays(2, 0);
+        assertEquals(0, notifiedDays.size());
+
+        scheduler.advanceToLastPostedRunnable();
+        assertEquals(Arrays.asList(6), notifiedDays);
+    }
+
+    @Test
+    public void settleModeWaitsForTheStepsOfALongPressToStop() {
+        show(DatePicker.NOTIFY_ON_SETTLE);
+        // a long press steps the idle spinner every 300 ms
+        stepDays(2, 300);
+        scheduler.advanceBy(300, TimeUnit.MILLISECONDS);
+        assertEquals(0, notifiedDays.size());
+
+        scheduler.advanceBy(100, TimeUnit.MILLISECONDS);
+        assertEquals(Arrays.asList(6), notifiedDays);
+
+        scheduler.advanceBy(1000, TimeUnit.MILLISECONDS);
+        assertEquals(1, notifiedDays.size());
+    }
+
+    @Test
+    public void settleModeDeliversAPendingDateOnDismiss() {
+        show(DatePicker.NOTIFY_ON_SETTLE);
+        stepDays(2, 0);
+        assertEquals(0, notifiedDays.size());
+
+        dialog.dismiss();
+        assertEquals(Arrays.asList(6), notifiedDays);
+    }
+
+    private void show(int notificationMode) {
+        dialog = PickerTestSupport.show(PickerTestSupport.newBuilder()
+                .defaultDate(2018, 0, 1)
+                .notificationMode(notificationMode));
+        PickerTestSupport.getDatePicker(dialog).init(2018, 0, 1, true, listener);
+        daySpinner = PickerTestSupport.getSpinner(dialog, R.id.day);
+        notifiedDays.clear();
+        scheduler.pause();
+    }
+
+    // steps the day spinner from the given day to four days later
+    private void stepDays(int firstDay, long millisBetweenSteps) {
+        for (int day = firstDay; day < firstDay + 5; day++) {
+            // advancing by nothing would still run what is due
+            if (day > firstDay && millisBetweenSteps > 0) {
+                scheduler.advanceBy(millisBetweenSteps, TimeUnit.MILLISECONDS);
+            }
+            PickerTestSupport.step(daySpinner, day);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.tsongkha.spinnerdatepicker;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that {@link PackedDates#fromMillis(long)} gives Gregorian dates in the default time
+ * zone whatever the default locale's calendar, the same dates as the epoch day arithmetic.
+ */
+public class PackedDatesTest {
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final TimeZone NEW_YORK = TimeZone.getTimeZone("America/New_York");
+
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+
+    private Locale defaultLocale;
+    private TimeZone defaultTimeZone;
+
+    @Before
+    public void setUp() {
+        defaultLocale = Locale.getDefault();
+        defaultTimeZone = TimeZone.getDefault();
+    }
+
+    @After
+    public void tearDown() {
+        Locale.setDefault(defaultLocale);
+        TimeZone.setDefault(defaultTimeZone);
+    }
+
+    @Test
+    public void buddhistDefaultLocaleGivesGregorianDates() {
+        final Locale thai = new Locale("th", "TH");
+        Locale.setDefault(thai);
+        TimeZone.setDefault(UTC);
+        final long millis = millis(UTC, 2019, Calendar.MARCH, 4, 12);
+        // the default calendar of the locale counts years from 543 BC
+        final Calendar buddhist = Calendar.getInstance();
+        buddhist.setTimeInMillis(millis);
+        assertEquals(2562, buddhist.get(Calendar.YEAR));
+
+        assertDate(2019, Calendar.MARCH, 4, millis);
+    }
+
+    @Test
+    public void japaneseImperialDefaultLocaleGivesGregorianDates() {
+        Locale.setDefault(new Locale("ja", "JP", "JP"));
+        TimeZone.setDefault(UTC);
+
+        assertDate(2019, Calendar.MARCH, 4, millis(UTC, 2019, Calendar.MARCH, 4, 12));
+        assertDate(1989, Calendar.JANUARY, 7, millis(UTC, 1989, Calendar.JANUARY, 7, 0));
+    }
+
+    @Test
+    public void datesBeforeTheGregorianCutoverAreProleptic() {
+        Locale.setDefault(Locale.US);
+        TimeZone.setDefault(UTC);
+
+        final long millis = millis(UTC, 1000, Calendar.JUNE, 15, 0);
+        assertDate(1000, Calendar.JUNE, 15, millis);
+        assertEquals(PackedDates.toEpochDay(1000, Calendar.JUNE, 15), millis / MILLIS_PER_DAY);
+        assertDate(1582, Calendar.OCTOBER, 4, millis(UTC, 1582, Calendar.OCTOBER, 4, 0));
+    }
+
+    @Test
+    public void datesAreInTheDefaultTimeZone() {
+        Locale.setDefault(Locale.US);
+        TimeZone.setDefault(NEW_YORK);
+
+        // still the evening before in New York
+        assertDate(2018, Calendar.DECEMBER, 31, millis(UTC, 2019, Calendar.JANUARY, 1, 3));
+        assertDate(2019, Calendar.JANUARY, 1, millis(UTC, 2019, Calendar.JANUARY, 1, 5));
+        assertDate(1969, Calendar.DECEMBER, 31, 0);
+    }
+
+    @Test
+    public void instantsBeforeTheEpochMatchTheEpochDays() {
+        Locale.setDefault(Locale.US);
+        TimeZone.setDefault(UTC);
+
+        assertDate(1969, Calendar.DECEMBER, 31, -1);
+        for (long epochDay = -800000; epochDay < 800000; epochDay += 997) {
+            assertEquals(PackedDates.fromEpochDay(epochDay),
+                         PackedDates.fromMillis(epochDay * MILLIS_PER_DAY + MILLIS_PER_DAY - 1));
+        }
+    }
+
+    private static void assertDate(int year, int month, int dayOfMonth, long millis) {
+        assertEquals(PackedDates.pack(year, month, dayOfMonth), PackedDates.fromMillis(millis));
+    }
+
+    private static long millis(TimeZone timeZone, int year, int month, int dayOfMonth,
+                               int hourOfDay) {
+        final GregorianCalendar calendar = new GregorianCalendar(timeZone, Locale.US);
+        calendar.setGregorianChange(new Date(Long.MIN_VALUE));
+        calendar.clear();
+        calendar.set(year, month, dayOfMonth, hourOfDay, 0);
+        return calendar.getTimeInMillis();
+    }
+}
@@ -0,0 +1,85 @@
+package com.tsongkha.spinnerdatepicker;
+
+import android.app.Activity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Checks that the views {@link PickerLayouts} builds in code match the inflated layouts, so that
+ * view id based selectors keep working with either.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class PickerLayoutsTest {
+
+    private static final int[] IDS = {R.id.datePickerContainer, R.id.parent, R.id.day, R.id.month,
+            R.id.year};
+
+    private Activity activity;
+
+    @Before
+    public void setUp() {
+        activity = PickerTestSupport.newActivity();
+    }
+
+    @Test
+    public void programmaticLayoutMatchesInflatedLayout() {
+        DatePickerDialog inflated = show(false);
+        DatePickerDialog programmatic = show(true);
+
+        for (int id : IDS) {
+            View expected = inflated.findViewById(id);
+            View actual = programmatic.findViewById(id);
+            assertNotNull(activity.getResources().getResourceName(id), actual);
+            assertEquals(expected.getClass(), actual.getClass());
+            assertEquals(expected.isFocusable(), actual.isFocusable());
+            assertEquals(expected.isFocusableInTouchMode(), actual.isFocusableInTouchMode());
+            assertLayoutParamsEqual(expected.getLayoutParams(), actual.getLayoutParams());
+        }
+        assertLayoutParamsEqual(
+                ((View) inflated.findViewById(R.id.parent).getParent()).getLayoutParams(),
+                ((View) programmatic.findViewById(R.id.parent).getParent()).getLayoutParams());
+    }
+
+    @Test
+    public void programmaticLayoutKeepsSpinnerOrder() {
+        ViewGroup inflated = (ViewGroup) show(false).findViewById(R.id.parent);
+        ViewGroup programmatic = (ViewGroup) show(true).findViewById(R.id.parent);
+
+        assertEquals(inflated.getChildCount(), programmatic.getChildCount());
+        for (int i = 0; i < inflated.getChildCount(); i++) {
+            assertEquals(inflated.getChildAt(i).getId(), programmatic.getChildAt(i).getId());
+        }
+    }
+
+    private DatePickerDialog show(boolean programmaticLayout) {
+        return PickerTestSupport.show(PickerTestSupport.newBuilder(activity)
+                .programmaticLayout(programmaticLayout));
+    }
+
+    private static void assertLayoutParamsEqual(ViewGroup.LayoutParams expected,
+                                                ViewGroup.LayoutParams actual) {
+        assertEquals(expected.width, actual.width);
+        assertEquals(expected.height, actual.height);
+        if (expected instanceof ViewGroup.MarginLayoutParams) {
+            ViewGroup.MarginLayoutParams expectedMargins = (ViewGroup.MarginLayoutParams) expected;
+            ViewGroup.MarginLayoutParams actualMargins = (ViewGroup.MarginLayoutParams) actual;
+            assertEquals(expectedMargins.getMarginStart(), actualMargins.getMarginStart());
+            assertEquals(expectedMargins.getMarginEnd(), actualMargins.getMarginEnd());
+        }
+        if (expected instanceof LinearLayout.LayoutParams) {
+            assertEquals(((LinearLayout.LayoutParams) expected).gravity,
+                         ((LinearLayout.LayoutParams) actual).gravity);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.tsongkha.spinnerdatepicker;
+
+import android.widget.NumberPicker;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that each stage reports its timing once and that the spinner steps are counted.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class PickerMetricsTest {
+
+    @Test
+    public void stagesAndStepsAreReported() {
+        RecordingMetrics metrics = new RecordingMetrics();
+        DatePickerDialog dialog = PickerTestSupport.show(PickerTestSupport.newBuilder()
+                .defaultDate(2018, 5, 15)
+                .metrics(metrics));
+
+        assertEquals(1, metrics.dialogCreated);
+        assertEquals(1, metrics.pickerInflated);
+        assertEquals(1, metrics.localeApplied);
+        assertTrue(metrics.totalNanos >= 0);
+
+        NumberPicker daySpinner = PickerTestSupport.getSpinner(dialog, R.id.day);
+        for (int day = 15; day < 18; day++) {
+            PickerTestSupport.step(daySpinner, day + 1);
+        }
+        assertEquals(3, metrics.dateChangesHandled);
+
+        dialog.dismiss();
+        assertEquals(3, metrics.sessionUpdateCount);
+    }
+
+    private static class RecordingMetrics implements PickerMetrics {
+        int dialogCreated;
+        int pickerInflated;
+        int localeApplied;
+        int dateChangesHandled;
+        int sessionUpdateCount = -1;
+        long totalNanos;
+
+        @Override
+        public void onDialogCreated(long nanos) {
+            dialogCreated++;
+            totalNanos += nanos;
+        }
+
+        @Override
+        public void onPickerInflated(long nanos) {
+            pickerInflated++;
+            totalNanos += nanos;
+        }
+
+        @Override
+        public void onLocaleApplied(long nanos) {
+            localeApplied++;
+            totalNanos += nanos;
+        }
+
+        @Override
+        public void onDateChangeHandled(long nanos) {
+            dateChangesHandled++;
+            totalNanos += nanos;
+        }
+
+        @Override
+        public void onSessionEnded(int updateCount) {
+            sessionUpdateCount = updateCount;
+        }
+    }
+}
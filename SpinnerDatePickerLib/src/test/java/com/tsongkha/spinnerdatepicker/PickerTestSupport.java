@@ -0,0 +1,72 @@
+package com.tsongkha.spinnerdatepicker;
+
+import android.app.Activity;
+import android.content.Context;
+import android.view.ViewGroup;
+import android.widget.NumberPicker;
+
+import org.robolectric.Robolectric;
+import org.robolectric.Shadows;
+
+/**
+ * The dialog fixture shared by the Robolectric tests.
+ */
+final class PickerTestSupport {
+
+    private PickerTestSupport() {
+    }
+
+    /**
+     * @return a started activity to show dialogs in
+     */
+    static Activity newActivity() {
+        return Robolectric.buildActivity(Activity.class).setup().get();
+    }
+
+    /**
+     * @return a builder for a dialog in a new activity, with the theme of the example app
+     */
+    static SpinnerDatePickerDialogBuilder newBuilder() {
+        return newBuilder(newActivity());
+    }
+
+    /**
+     * @return a builder for a dialog in the given context, with the theme of the example app
+     */
+    static SpinnerDatePickerDialogBuilder newBuilder(Context context) {
+        return new SpinnerDatePickerDialogBuilder()
+                .context(context)
+                .dialogTheme(androidx.appcompat.R.style.Theme_AppCompat_Light_Dialog_Alert);
+    }
+
+    /**
+     * @return the built dialog, shown
+     */
+    static DatePickerDialog show(SpinnerDatePickerDialogBuilder builder) {
+        final DatePickerDialog dialog = builder.build();
+        dialog.show();
+        return dialog;
+    }
+
+    static DatePicker getDatePicker(DatePickerDialog dialog) {
+        return (DatePicker) ((ViewGroup) dialog.findViewById(R.id.datePickerContainer))
+                .getChildAt(0);
+    }
+
+    static NumberPicker getSpinner(DatePickerDialog dialog, int spinnerId) {
+        return (NumberPicker) dialog.findViewById(spinnerId);
+    }
+
+    /**
+     * Moves the spinner to the value and notifies the picker as a user's step does.
+     */
+    static void step(NumberPicker spinner, int newVal) {
+        final int oldVal = spinner.getValue();
+        spinner.setValue(newVal);
+        getOnValueChangeListener(spinner).onValueChange(spinner, oldVal, newVal);
+    }
+
+    static NumberPicker.OnValueChangeListener getOnValueChangeListener(NumberPicker spinner) {
+        return Shadows.shadowOf(spinner).getOnValueChangeListener();
+    }
+}
@@ -0,0 +1,69 @@
+package com.tsongkha.spinnerdatepicker;
+
+import android.app.Activity;
+import android.os.Build;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks that prewarming runs on the given executor, fills the locale cache and saves it for
+ * the next processes, and that pickers leave the saved locales to it.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class SpinnerDatePickerTest {
+
+    @Test
+    public void prewarmLoadsTheDefaultLocale() {
+        final List<Runnable> tasks = new ArrayList<>();
+        final Activity activity = PickerTestSupport.newActivity();
+
+        SpinnerDatePicker.prewarm(activity, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        });
+        assertEquals(1, tasks.size());
+        tasks.get(0).run();
+
+        final PickerLocaleData data = PickerLocaleData.get(Locale.getDefault());
+        assertEquals(java.text.DateFormat.getDateInstance(java.text.DateFormat.LONG,
+                                                          Locale.getDefault()),
+                     data.newTitleDateFormat());
+        assertNotNull(LocaleDataTable.peek());
+        final File file = new File(activity.getCacheDir(), LocaleDataTable.FILE_NAME);
+        assertNotNull(LocaleDataTable.open(file, Build.FINGERPRINT).read(Locale.getDefault()));
+    }
+
+    @Test
+    public void pickersDoNotSaveTheirLocales() {
+        final Locale defaultLocale = Locale.getDefault();
+        // not loaded by any other test
+        Locale.setDefault(new Locale("fy", "NL"));
+        try {
+            final Activity activity = PickerTestSupport.newActivity();
+            PickerTestSupport.show(PickerTestSupport.newBuilder(activity));
+
+            assertSame(PickerLocaleData.get(Locale.getDefault()),
+                       PickerLocaleData.get(Locale.getDefault()));
+            assertFalse(new File(activity.getCacheDir(), LocaleDataTable.FILE_NAME).exists());
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+}
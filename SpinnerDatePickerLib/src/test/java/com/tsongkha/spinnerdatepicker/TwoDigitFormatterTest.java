@@ -0,0 +1,93 @@
+package com.tsongkha.spinnerdatepicker;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Compares {@link TwoDigitFormatter} with {@code String.format("%02d")}, which the table lookup
+ * replaced, for locales with ASCII and other digits and across changes of the default locale.
+ */
+public class TwoDigitFormatterTest {
+
+    // the numbering systems are spelled out, as older JDKs default both locales to ASCII digits
+    private static final Locale ARABIC = Locale.forLanguageTag("ar-EG-u-nu-arab");
+    private static final Locale PERSIAN = Locale.forLanguageTag("fa-IR-u-nu-arabext");
+
+    private static final int[] OUTSIDE_THE_TABLE = {-99, -1, 100, 101, 1000, 123456,
+            Integer.MAX_VALUE, Integer.MIN_VALUE};
+
+    private Locale defaultLocale;
+
+    @Before
+    public void setUp() {
+        defaultLocale = Locale.getDefault();
+    }
+
+    @After
+    public void tearDown() {
+        Locale.setDefault(defaultLocale);
+    }
+
+    @Test
+    public void valuesMatchStringFormat() {
+        for (Locale locale : new Locale[]{Locale.US, Locale.FRANCE, ARABIC, PERSIAN}) {
+            Locale.setDefault(locale);
+            final TwoDigitFormatter formatter = new TwoDigitFormatter();
+            for (int value = 0; value < 100; value++) {
+                assertEquals(String.format(locale, "%02d", value), formatter.format(value));
+            }
+            for (int value : OUTSIDE_THE_TABLE) {
+                assertEquals(String.format(locale, "%02d", value), formatter.format(value));
+            }
+        }
+    }
+
+    @Test
+    public void nonAsciiDigitsAreUsed() {
+        for (Locale locale : new Locale[]{ARABIC, PERSIAN}) {
+            final char zeroDigit = DecimalFormatSymbols.getInstance(locale).getZeroDigit();
+            assertNotEquals('0', zeroDigit);
+            Locale.setDefault(locale);
+            final String nine = new TwoDigitFormatter().format(9);
+            assertEquals(zeroDigit, nine.charAt(0));
+            assertEquals(zeroDigit + 9, nine.charAt(1));
+        }
+    }
+
+    @Test
+    public void tablesAreLookedUpOnceAndSharedByZeroDigit() {
+        Locale.setDefault(Locale.US);
+        final TwoDigitFormatter formatter = new TwoDigitFormatter();
+        assertSame(formatter.format(7), formatter.format(7));
+        assertSame(TwoDigitFormatter.getTable(Locale.US), TwoDigitFormatter.getTable(Locale.UK));
+        assertNotEquals(TwoDigitFormatter.getTable(Locale.US)[7],
+                        TwoDigitFormatter.getTable(PERSIAN)[7]);
+    }
+
+    @Test
+    public void defaultLocaleChangesBetweenCallsAreFollowed() {
+        Locale.setDefault(Locale.US);
+        final TwoDigitFormatter formatter = new TwoDigitFormatter();
+        assertEquals("05", formatter.format(5));
+
+        Locale.setDefault(PERSIAN);
+        assertEquals(String.format(PERSIAN, "%02d", 5), formatter.format(5));
+        assertEquals(String.format(PERSIAN, "%02d", 123), formatter.format(123));
+
+        Locale.setDefault(ARABIC);
+        assertEquals(String.format(ARABIC, "%02d", 5), formatter.format(5));
+
+        // an equal locale that is another instance
+        Locale.setDefault(new Locale("en", "US"));
+        assertEquals("05", formatter.format(5));
+        assertEquals("123", formatter.format(123));
+    }
+}